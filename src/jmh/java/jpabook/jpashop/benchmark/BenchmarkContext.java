@@ -0,0 +1,39 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.JpashopApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * 벤치마크용 스프링 컨텍스트
+ *
+ * - 웹 서버 없이 JPA 계층만 띄운다. (컨트롤러 빈은 그대로 만들어지므로 메서드를 직접 호출한다.)
+ * - 외부 H2 서버 대신 벤치마크마다 새로 만든 메모리 DB 를 사용한다.
+ * - SQL 로그, p6spy, 쿼리 수 모니터링은 측정값에 섞이지 않도록 끈다.
+ */
+public final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(String... properties) {
+        // devtools 가 JMH 의 main 스레드를 재시작하지 않도록 한다. (SpringApplication 시작 전에 시스템 속성으로 설정해야 한다.)
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        return new SpringApplicationBuilder(JpashopApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.main.banner-mode=off",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        "spring.jpa.properties.hibernate.generate_statistics=false",
+                        "decorator.datasource.enabled=false",
+                        "jpashop.query-count.enabled=false",
+                        "logging.level.root=warn",
+                        "logging.level.org.hibernate.SQL=warn",
+                        "logging.level.org.hibernate.type=warn")
+                .properties(properties)
+                .run();
+    }
+}
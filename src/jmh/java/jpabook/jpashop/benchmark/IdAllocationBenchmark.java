@@ -0,0 +1,109 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.EntityTestDomain.IdentityTestEntity;
+import jpabook.jpashop.domain.EntityTestDomain.SequenceTestEntity;
+import jpabook.jpashop.domain.EntityTestDomain.SequenceUsingAllocationSizeTestEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 기본키 생성 전략별 초당 insert 수 비교 (PrimaryKeyCreationStrategyTest 의 실험을 수치로 확인한다.)
+ *
+ * - identity: IDENTITY 전략, persist() 마다 insert 가 바로 나가고 JDBC 배치를 쓸 수 없다.
+ * - sequence: SEQUENCE 전략, allocationSize = 1 이라 persist() 마다 시퀀스를 호출한다.
+ * - sequenceAllocationSize10: SEQUENCE 전략, allocationSize = 10
+ * - pooledLoDelivery, pooledLoOrders: 도메인 엔티티의 pooled-lo 시퀀스, allocationSize 는 @Param 으로 바꿔가며 측정한다.
+ *
+ * 한번 호출할 때 여러 행을 저장하고 @OperationsPerInvocation 으로 나누므로, 결과(ops/s)가 곧 초당 insert 수다.
+ * allocationSize 파라미터는 pooledLo* 벤치마크에만 영향을 준다. (나머지는 엔티티에 할당 크기가 고정되어 있다.)
+ *
+ * 실행: ./gradlew jmh -PjmhIncludes=IdAllocationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdAllocationBenchmark {
+
+    private static final int ENTITIES_PER_INVOCATION = 100;
+    private static final int ORDERS_PER_INVOCATION = 20;
+
+    @Param({"1", "10", "50", "200"})
+    int allocationSize;
+
+    ConfigurableApplicationContext context;
+    EntityManager em;
+    TransactionTemplate transactionTemplate;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("spring.jpa.properties.jpashop.id.allocation_size=" + allocationSize);
+        em = context.getBean(EntityManager.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTITIES_PER_INVOCATION)
+    public void identity() {
+        persistAll(IdentityTestEntity::new);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTITIES_PER_INVOCATION)
+    public void sequence() {
+        persistAll(SequenceTestEntity::new);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTITIES_PER_INVOCATION)
+    public void sequenceAllocationSize10() {
+        persistAll(SequenceUsingAllocationSizeTestEntity::new);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTITIES_PER_INVOCATION)
+    public void pooledLoDelivery() {
+        persistAll(Delivery::new);
+    }
+
+    // 주문 하나에 7개 테이블 행 (회원, 상품 2개, 주문, 배송, 주문 상품 2개)
+    @Benchmark
+    @OperationsPerInvocation(ORDERS_PER_INVOCATION * OrderFixture.ROWS_PER_ORDER)
+    public List<Long> pooledLoOrders() {
+        return OrderFixture.createOrders(context, ORDERS_PER_INVOCATION);
+    }
+
+    private void persistAll(Supplier<Object> entityFactory) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < ENTITIES_PER_INVOCATION; i++) {
+                em.persist(entityFactory.get());
+            }
+        });
+    }
+}
@@ -0,0 +1,136 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.search.ItemSearchIndex;
+import jpabook.jpashop.search.ItemSearchResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 상품 이름 검색 색인의 검색, 자동완성 지연 시간 (SampleTime 모드라 결과에 p50, p99, p99.9 가 함께 나온다.)
+ *
+ * 데이터베이스 없이 색인만 만든다. 상품 이름은 VOCABULARY 개 단어 중 3~5개를 골라 짓는데,
+ * 앞쪽 단어일수록 자주 나오도록(Zipf 분포에 가깝게) 골라 흔한 단어와 드문 단어가 섞이게 한다.
+ * 단어는 자음+모음 음절 2~4개를 이어 만들어, 실제 단어처럼 첫 글자가 여러 글자에 나뉜다. (한 글자 접두사마다 약 1000개 단어)
+ *
+ * - searchCommonTerm: 가장 흔한 단어 하나
+ * - searchTwoTerms: 흔한 단어 + 중간 빈도 단어 (AND)
+ * - searchRareTerm: 드문 단어 하나
+ * - autocompleteOneCharPrefix: 한 글자 접두사 (맞는 단어가 가장 많다.)
+ * - autocompleteShortPrefix: 두 글자 접두사
+ * - autocompleteLongPrefix: 다섯 글자 접두사 (미리 정렬하지 않은 길이, 범위 조회)
+ *
+ * 실행: ./gradlew jmh -PjmhIncludes=ItemSearchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ItemSearchBenchmark {
+
+    private static final int VOCABULARY = 20000;
+    private static final int LIMIT = 20;
+    private static final String CONSONANTS = "bcdfghjklmnprstvwz";
+    private static final String VOWELS = "aeiou";
+
+    @Param({"1000000"})
+    int itemCount;
+
+    ItemSearchIndex index;
+    String[] words;
+    int cursor;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        Set<String> vocabulary = new LinkedHashSet<>();
+        while (vocabulary.size() < VOCABULARY) {
+            vocabulary.add(word(random));
+        }
+        words = vocabulary.toArray(new String[0]);
+
+        index = new ItemSearchIndex();
+        for (long id = 1; id <= itemCount; id++) {
+            int wordCount = 3 + random.nextInt(3);
+            StringBuilder name = new StringBuilder();
+            for (int i = 0; i < wordCount; i++) {
+                name.append(words[zipf(random)]).append(' ');
+            }
+            Book book = new Book();
+            book.setId(id);
+            book.setName(name.toString());
+            book.setPrice(10000);
+            book.setVersion(0L);
+            index.put(book);
+        }
+        System.out.printf("%nindexed items=%d, terms=%d%n", index.size(), index.termCount());
+    }
+
+    @Benchmark
+    public List<ItemSearchResult> searchCommonTerm() {
+        return index.search(words[next() % 10], LIMIT);
+    }
+
+    @Benchmark
+    public List<ItemSearchResult> searchTwoTerms() {
+        int i = next();
+        return index.search(words[i % 10] + " " + words[100 + i % 100], LIMIT);
+    }
+
+    @Benchmark
+    public List<ItemSearchResult> searchRareTerm() {
+        return index.search(words[VOCABULARY - 1 - next() % 1000], LIMIT);
+    }
+
+    @Benchmark
+    public List<String> autocompleteOneCharPrefix() {
+        return index.autocomplete(words[next() % VOCABULARY].substring(0, 1), 10);
+    }
+
+    @Benchmark
+    public List<String> autocompleteShortPrefix() {
+        return index.autocomplete(words[next() % VOCABULARY].substring(0, 2), 10);
+    }
+
+    @Benchmark
+    public List<String> autocompleteLongPrefix() {
+        String word = words[next() % VOCABULARY];
+        return index.autocomplete(word.substring(0, Math.min(5, word.length())), 10);
+    }
+
+    private int next() {
+        return cursor++ & Integer.MAX_VALUE;
+    }
+
+    private String word(Random random) {
+        int syllables = 2 + random.nextInt(3);
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < syllables; i++) {
+            word.append(CONSONANTS.charAt(random.nextInt(CONSONANTS.length())))
+                    .append(VOWELS.charAt(random.nextInt(VOWELS.length())));
+        }
+        return word.toString();
+    }
+
+    // 0 에 가까운 인덱스가 더 자주 나온다. (1/x 분포의 역변환 근사)
+    private int zipf(Random random) {
+        return (int) Math.min(VOCABULARY - 1, Math.exp(random.nextDouble() * Math.log(VOCABULARY)) - 1);
+    }
+}
@@ -0,0 +1,107 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.cache.MemberNameFilter;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.service.MemberService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 회원 가입 처리량 - 이름 필터(블룸 필터)를 켰을 때와 껐을 때 비교
+ *
+ * - signupNewName: 처음 보는 이름으로 가입, 필터를 켜면 대부분 중복 확인 조회를 건너뛴다.
+ * - signupDuplicateName: 이미 있는 이름으로 가입, 필터와 관계없이 조회해서 거절한다.
+ *
+ * 측정이 끝나면 필터 통계(조회를 건너뛴 수, 오탐 수, 오탐률)를 출력한다.
+ *
+ * 실행: ./gradlew jmh -PjmhIncludes=MemberSignupBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberSignupBenchmark {
+
+    private static final int EXISTING_MEMBERS = 100000;
+
+    @Param({"true", "false"})
+    boolean filterEnabled;
+
+    ConfigurableApplicationContext context;
+    MemberService memberService;
+    MemberNameFilter memberNameFilter;
+
+    final AtomicLong sequence = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(
+                "jpashop.cache.member-name.enabled=" + filterEnabled,
+                "jpashop.cache.member-name.expected-names=" + EXISTING_MEMBERS * 2);
+        memberService = context.getBean(MemberService.class);
+        memberNameFilter = context.getBean(MemberNameFilter.class);
+        createMembers();
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.println("member name filter: " + memberNameFilter.getStats());
+        context.close();
+    }
+
+    @Benchmark
+    public long signupNewName() {
+        Member member = new Member();
+        member.setName("newcomer" + sequence.incrementAndGet());
+        memberService.save(member);
+        return member.getId();
+    }
+
+    @Benchmark
+    public boolean signupDuplicateName() {
+        Member member = new Member();
+        member.setName("member" + sequence.incrementAndGet() % EXISTING_MEMBERS);
+        try {
+            memberService.save(member);
+            return true;
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+
+    // 시작 시 필터를 채운 뒤에 저장하므로, 서비스를 거치지 않은 이름은 직접 필터에 넣는다.
+    private void createMembers() {
+        EntityManager em = context.getBean(EntityManager.class);
+        TransactionTemplate transactionTemplate = context.getBean(TransactionTemplate.class);
+        int batchSize = 1000;
+        for (int from = 0; from < EXISTING_MEMBERS; from += batchSize) {
+            int start = from;
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = start; i < start + batchSize; i++) {
+                    Member member = new Member();
+                    member.setName("member" + i);
+                    em.persist(member);
+                    memberNameFilter.put(member.getName());
+                }
+            });
+        }
+    }
+}
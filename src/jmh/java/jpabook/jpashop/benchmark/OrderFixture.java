@@ -0,0 +1,86 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Book;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 벤치마크 데이터 - 회원, 상품 2개, 배송을 가진 주문을 원하는 수만큼 저장한다.
+ * 주문 하나에 회원, 상품 2개, 주문, 배송, 주문 상품 2개 총 ROWS_PER_ORDER 행을 저장한다.
+ */
+public final class OrderFixture {
+
+    public static final int ROWS_PER_ORDER = 7;
+
+    private static final int FLUSH_SIZE = 100;
+
+    // 여러번 호출해도 회원, 상품 이름이 겹치지 않도록 한다.
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private OrderFixture() {
+    }
+
+    /**
+     * @return 저장한 주문 아이디 (InitDB 가 저장한 주문은 포함하지 않는다.)
+     */
+    public static List<Long> createOrders(ConfigurableApplicationContext context, int orderCount) {
+        EntityManager em = context.getBean(EntityManager.class);
+        TransactionTemplate transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        List<Long> orderIds = new ArrayList<>(orderCount);
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Order> pending = new ArrayList<>(FLUSH_SIZE);
+            for (int n = 0; n < orderCount; n++) {
+                int i = SEQUENCE.getAndIncrement();
+                Member member = new Member();
+                member.setName("benchmark" + i);
+                member.setAddress(new Address("서울", String.valueOf(i), "1111"));
+                em.persist(member);
+
+                Book book1 = createBook(em, "JPA BOOK" + i, 10000);
+                Book book2 = createBook(em, "SPRING BOOK" + i, 20000);
+
+                Delivery delivery = new Delivery();
+                delivery.setAddress(member.getAddress());
+
+                Order order = Order.createOrder(member, delivery,
+                        OrderItem.createOrderItem(book1, 10000, 1),
+                        OrderItem.createOrderItem(book2, 20000, 2));
+                em.persist(order);
+                pending.add(order);
+
+                if (pending.size() == FLUSH_SIZE) {
+                    flush(em, pending, orderIds);
+                }
+            }
+            flush(em, pending, orderIds);
+        });
+        return orderIds;
+    }
+
+    private static void flush(EntityManager em, List<Order> pending, List<Long> orderIds) {
+        em.flush();
+        pending.forEach(order -> orderIds.add(order.getId()));
+        pending.clear();
+        em.clear();
+    }
+
+    private static Book createBook(EntityManager em, String name, int price) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(100);
+        em.persist(book);
+        return book;
+    }
+}
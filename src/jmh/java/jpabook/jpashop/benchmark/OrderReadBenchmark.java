@@ -0,0 +1,128 @@
+package jpabook.jpashop.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.cache.OrderDtoCache;
+import jpabook.jpashop.controller.OrderSimpleController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * OrderSimpleController 의 조회 방식별 처리량, 평균 시간, 할당량(-prof gc) 비교
+ *
+ * 각 벤치마크는 컨트롤러 메서드 호출 + JSON 직렬화까지를 한번의 요청으로 본다.
+ * 지연 로딩이 필요한 방식은 OSIV 처럼 읽기 전용 트랜잭션 안에서 직렬화까지 끝낸다.
+ * 단건 조회는 매 호출마다 다음 주문 아이디를 사용해 같은 주문만 반복 조회하지 않도록 한다.
+ *
+ * 실행: ./gradlew jmh (결과는 build/results/jmh/results.json)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderReadBenchmark {
+
+    @Param({"100", "1000"})
+    int orderCount;
+
+    ConfigurableApplicationContext context;
+    OrderSimpleController controller;
+    OrderDtoCache orderDtoCache;
+    ObjectMapper objectMapper;
+    TransactionTemplate readOnlyTransaction;
+
+    List<Long> orderIds;
+    int cursor;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start();
+        controller = context.getBean(OrderSimpleController.class);
+        orderDtoCache = context.getBean(OrderDtoCache.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(TransactionTemplate.class).getTransactionManager());
+        readOnlyTransaction.setReadOnly(true);
+
+        orderIds = OrderFixture.createOrders(context, orderCount);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    // 해결과정 4단계 - 엔티티 반환 (프록시 강제 초기화 + Hibernate5Module)
+    @Benchmark
+    public byte[] findOrder() {
+        Long orderId = nextOrderId();
+        return inReadOnlyTransaction(() -> controller.findOrder(orderId, "member,delivery"));
+    }
+
+    // 해결과정 5단계 - DTO 반환, 캐시 히트
+    @Benchmark
+    public byte[] findOrderReturnDtoCached() {
+        return toJson(controller.findOrderReturnDTO(nextOrderId()));
+    }
+
+    // 해결과정 5단계 - DTO 반환, 매번 캐시를 비워 데이터베이스에서 조회
+    @Benchmark
+    public byte[] findOrderReturnDtoUncached() {
+        orderDtoCache.clear();
+        return toJson(controller.findOrderReturnDTO(nextOrderId()));
+    }
+
+    // 주문 전체 - 지연 로딩 (배치 페치)
+    @Benchmark
+    public byte[] findOrderAll() {
+        return inReadOnlyTransaction(controller::findOrderAll);
+    }
+
+    // 해결과정 6단계 - 주문 전체, 페치 조인
+    @Benchmark
+    public byte[] findOrderAllWithFetchJoin() {
+        return inReadOnlyTransaction(controller::findOrderAllWithFetchJoin);
+    }
+
+    // 해결과정 7단계 - 주문 전체, DTO 직접 조회
+    @Benchmark
+    public byte[] findOrderAllWithQueryDto() {
+        return inReadOnlyTransaction(controller::findOrderAllWithQueryDto);
+    }
+
+    private Long nextOrderId() {
+        Long orderId = orderIds.get(cursor);
+        cursor = (cursor + 1) % orderIds.size();
+        return orderId;
+    }
+
+    private byte[] inReadOnlyTransaction(Supplier<Object> request) {
+        return readOnlyTransaction.execute(status -> toJson(request.get()));
+    }
+
+    private byte[] toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
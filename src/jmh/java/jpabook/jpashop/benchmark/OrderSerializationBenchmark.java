@@ -0,0 +1,130 @@
+package jpabook.jpashop.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.controller.OrderSimpleController;
+import jpabook.jpashop.repository.query.OrderSimpleQueryDto;
+import jpabook.jpashop.service.dto.OrderDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 주문 목록 DTO 의 직렬화만 비교한다. (조회는 @Setup 에서 한번만 한다.)
+ *
+ * serializer
+ * - default: 스프링 부트의 기본 ObjectMapper (빈 프로퍼티 리플렉션 + Hibernate5Module)
+ * - precompiled: OrderJsonModule 을 등록한 ObjectMapper
+ * format: 응답 형식 (json, cbor, smile - BinaryFormatConfig 의 HTTP 메시지 컨버터가 사용하는 ObjectMapper)
+ *
+ * 응답 본문에 쓰는 것처럼 매번 비운 같은 출력 스트림에 쓴다.
+ * 형식별 응답 크기는 @Setup 에서 출력하고, 받는 쪽의 파싱 비용은 parseOrderDtos 로 잰다.
+ *
+ * 실행: ./gradlew jmh -PjmhIncludes=OrderSerializationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderSerializationBenchmark {
+
+    @Param({"default", "precompiled"})
+    String serializer;
+
+    @Param({"json", "cbor", "smile"})
+    String format;
+
+    @Param({"100", "1000"})
+    int orderCount;
+
+    ConfigurableApplicationContext context;
+    ObjectMapper objectMapper;
+
+    List<OrderDto> orderDtos;
+    List<OrderSimpleQueryDto> orderQueryDtos;
+    byte[] orderDtosEncoded;
+    ByteArrayOutputStream out;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("jpashop.json.order-serializers.enabled=" + serializer.equals("precompiled"));
+        objectMapper = objectMapper(format);
+        OrderFixture.createOrders(context, orderCount);
+
+        OrderSimpleController controller = context.getBean(OrderSimpleController.class);
+        orderDtos = controller.findOrderAllWithFetchJoin();
+        orderQueryDtos = controller.findOrderAllWithQueryDto();
+        out = new ByteArrayOutputStream(orderDtos.size() * 256);
+
+        try {
+            orderDtosEncoded = objectMapper.writeValueAsBytes(orderDtos);
+            System.out.printf("%n[%s, %s] OrderDto %d건 = %,d bytes, OrderSimpleQueryDto %d건 = %,d bytes%n",
+                    serializer, format, orderDtos.size(), orderDtosEncoded.length,
+                    orderQueryDtos.size(), objectMapper.writeValueAsBytes(orderQueryDtos).length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ObjectMapper objectMapper(String format) {
+        switch (format) {
+            case "json":
+                return context.getBean(ObjectMapper.class);
+            case "cbor":
+                return context.getBean(MappingJackson2CborHttpMessageConverter.class).getObjectMapper();
+            case "smile":
+                return context.getBean(MappingJackson2SmileHttpMessageConverter.class).getObjectMapper();
+            default:
+                throw new IllegalArgumentException("format=" + format);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    // /orders, /orders/fetch-join 응답
+    @Benchmark
+    public int writeOrderDtos() throws IOException {
+        return write(orderDtos);
+    }
+
+    // /orders/query 응답
+    @Benchmark
+    public int writeOrderSimpleQueryDtos() throws IOException {
+        return write(orderQueryDtos);
+    }
+
+    // 응답을 받은 쪽의 파싱
+    @Benchmark
+    public JsonNode parseOrderDtos() throws IOException {
+        return objectMapper.readTree(orderDtosEncoded);
+    }
+
+    private int write(Object body) throws IOException {
+        out.reset();
+        objectMapper.writeValue(out, body);
+        return out.size();
+    }
+}
@@ -0,0 +1,106 @@
+package jpabook.jpashop.cache;
+
+import jpabook.jpashop.repository.query.CategoryNodeQueryDto;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 카테고리 전체를 담은 변경 불가능한 트리
+ *
+ * 만든 뒤에는 바뀌지 않으므로 여러 스레드가 락 없이 함께 읽는다. 카테고리가 바뀌면 트리를 고치지 않고 새로 만든다. (CategoryTreeCache)
+ * 아이디로 노드를 바로 찾을 수 있도록 아이디 -> 노드 맵을 함께 가진다.
+ */
+public class CategoryTree {
+
+    private final List<Node> roots;
+    private final Map<Long, Node> nodesById;
+
+    private CategoryTree(List<Node> roots, Map<Long, Node> nodesById) {
+        this.roots = roots;
+        this.nodesById = nodesById;
+    }
+
+    /**
+     * 부모가 목록에 없는 카테고리는 루트로 본다. 자식은 아이디 순서다. (rows 의 순서를 따른다.)
+     */
+    public static CategoryTree of(List<CategoryNodeQueryDto> rows) {
+        Map<Long, List<Long>> childIdsByParentId = new HashMap<>();
+        Map<Long, CategoryNodeQueryDto> rowsById = new HashMap<>();
+        for (CategoryNodeQueryDto row : rows) {
+            rowsById.put(row.getCategoryId(), row);
+        }
+        List<Long> rootIds = new ArrayList<>();
+        for (CategoryNodeQueryDto row : rows) {
+            if (row.getParentId() == null || !rowsById.containsKey(row.getParentId())) {
+                rootIds.add(row.getCategoryId());
+            } else {
+                childIdsByParentId.computeIfAbsent(row.getParentId(), id -> new ArrayList<>()).add(row.getCategoryId());
+            }
+        }
+
+        Map<Long, Node> nodesById = new HashMap<>(rows.size() * 2);
+        List<Node> roots = new ArrayList<>(rootIds.size());
+        for (Long rootId : rootIds) {
+            roots.add(build(rootId, 0, rowsById, childIdsByParentId, nodesById));
+        }
+        return new CategoryTree(Collections.unmodifiableList(roots), Collections.unmodifiableMap(nodesById));
+    }
+
+    // 재귀 호출은 트리 깊이만큼만 쌓인다.
+    private static Node build(Long id, int depth, Map<Long, CategoryNodeQueryDto> rowsById,
+                              Map<Long, List<Long>> childIdsByParentId, Map<Long, Node> nodesById) {
+        List<Long> childIds = childIdsByParentId.getOrDefault(id, Collections.emptyList());
+        List<Node> children = new ArrayList<>(childIds.size());
+        for (Long childId : childIds) {
+            children.add(build(childId, depth + 1, rowsById, childIdsByParentId, nodesById));
+        }
+        CategoryNodeQueryDto row = rowsById.get(id);
+        Node node = new Node(id, row.getName(), row.getParentId(), row.getPath(), depth, Collections.unmodifiableList(children));
+        nodesById.put(id, node);
+        return node;
+    }
+
+    public List<Node> getRoots() {
+        return roots;
+    }
+
+    /**
+     * @return 없는 카테고리면 null
+     */
+    public Node find(Long categoryId) {
+        return nodesById.get(categoryId);
+    }
+
+    public int size() {
+        return nodesById.size();
+    }
+
+    @Getter
+    public static class Node {
+        private final Long id;
+        private final String name;
+        private final Long parentId;
+        private final String path;
+        private final int depth;
+        private final List<Node> children;
+
+        Node(Long id, String name, Long parentId, String path, int depth, List<Node> children) {
+            this.id = id;
+            this.name = name;
+            this.parentId = parentId;
+            this.path = path;
+            this.depth = depth;
+            this.children = children;
+        }
+
+        // Category.getDescendantPath()
+        public String getDescendantPath() {
+            return path + id + "/";
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package jpabook.jpashop.cache;
+
+import jpabook.jpashop.repository.CategoryRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 카테고리 트리 캐시
+ *
+ * 처음 요청할 때 카테고리 전체를 쿼리 한번으로 읽어 CategoryTree 를 만들고, 카테고리가 바뀌기 전까지 모든 요청이 같은 트리를 공유한다.
+ * 카테고리가 추가, 수정, 삭제되면 커밋 후 invalidate()로 버리고(CategoryTreeInvalidator), 다음 요청에서 새로 만든다.
+ *
+ * [generation]
+ * 트리를 만드는 도중 다른 트랜잭션이 카테고리를 바꾸고 invalidate()를 호출하면, 만들고 있던 트리는 이미 옛날 것이다.
+ * 읽기 전에 받아둔 generation 이 그 사이 바뀌었다면 만든 트리를 반환만 하고 저장하지 않는다. (OrderDtoCache 의 stamp 와 같다.)
+ */
+@Component
+public class CategoryTreeCache {
+
+    private final CategoryRepository categoryRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final Object loadLock = new Object();
+    private volatile CategoryTree tree;
+    private long generation; // this 로 보호한다.
+
+    public CategoryTreeCache(CategoryRepository categoryRepository, PlatformTransactionManager transactionManager) {
+        this.categoryRepository = categoryRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public CategoryTree get() {
+        CategoryTree current = tree;
+        if (current != null) return current;
+
+        // 트리가 없을 때 동시에 들어온 요청이 모두 전체 카테고리를 읽지 않도록 한 스레드만 만든다.
+        synchronized (loadLock) {
+            current = tree;
+            if (current != null) return current;
+
+            long loadingGeneration = currentGeneration();
+            CategoryTree loaded = readOnlyTransaction.execute(status -> CategoryTree.of(categoryRepository.findAllNodes()));
+            synchronized (this) {
+                if (generation == loadingGeneration) tree = loaded;
+            }
+            return loaded;
+        }
+    }
+
+    /**
+     * 트리를 만드는 중이어도 기다리지 않는다. (커밋 후 리스너에서 호출된다.)
+     */
+    public synchronized void invalidate() {
+        generation++;
+        tree = null;
+    }
+
+    private synchronized long currentGeneration() {
+        return generation;
+    }
+}
@@ -0,0 +1,63 @@
+package jpabook.jpashop.cache;
+
+import jpabook.jpashop.domain.item.Category;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * 카테고리가 추가, 수정, 삭제되면 커밋 후 CategoryTreeCache 를 비운다.
+ *
+ * 카테고리와 상품의 연결(category_item)만 바뀐 경우는 트리 모양이 그대로이므로 비우지 않는다.
+ * 하위 카테고리의 path 를 바꾸는 벌크 연산(CategoryRepository.replacePathPrefix)은 이벤트가 없지만,
+ * 항상 옮긴 카테고리의 수정과 같은 트랜잭션에서 실행되므로 그 수정 이벤트로 함께 비워진다. (CategoryService.move)
+ */
+@Component
+@RequiredArgsConstructor
+public class CategoryTreeInvalidator implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final CategoryTreeCache categoryTreeCache;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Category) categoryTreeCache.invalidate();
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Category) categoryTreeCache.invalidate();
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Category) categoryTreeCache.invalidate();
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return persister.getMappedClass() == Category.class;
+    }
+}
@@ -0,0 +1,166 @@
+package jpabook.jpashop.cache;
+
+import jpabook.jpashop.repository.MemberRepository;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 가입된 회원 이름의 블룸 필터
+ *
+ * mightContain()이 false 면 그 이름은 확실히 없으므로 회원 가입 시 중복 확인 조회를 건너뛴다.
+ * true 면 있을 수도 있으므로 데이터베이스에서 확인한다. (조회해보니 없었다면 오탐, falsePositiveCount 로 센다.)
+ *
+ * 필터는 조회를 줄이기 위한 것이고 중복 방지는 member.name 유니크 제약(uk_member_name)이 보장한다.
+ * 그래서 필터에 없는 이름(다른 서버에서 가입한 이름 등)이 있어도 insert 시점에 제약 위반으로 걸러지고,
+ * 롤백된 가입의 이름이 필터에 남아도 오탐이 하나 늘 뿐이다. 이름은 지울 수 없다. (회원 이름이 바뀌어도 예전 이름은 오탐으로 남는다.)
+ *
+ * 시작할 때(ApplicationReadyEvent) 데이터베이스의 모든 이름으로 채운다. 채우기 전에는 모든 이름을 있을 수도 있다고 본다.
+ * 비트 배열 크기와 해시 함수 수는 예상 이름 수와 목표 오탐률로 정한다. 예상보다 이름이 많아지면 오탐률이 올라간다.
+ */
+@Slf4j
+@Component
+public class MemberNameFilter {
+
+    private final boolean enabled;
+    private final long bitCount;
+    private final int hashCount;
+    private final AtomicLongArray bits;
+
+    private MemberRepository memberRepository;
+    private TransactionTemplate transactionTemplate;
+
+    private volatile boolean ready;
+    private final LongAdder nameCount = new LongAdder();
+    private final LongAdder skipCount = new LongAdder();
+    private final LongAdder checkCount = new LongAdder();
+    private final LongAdder falsePositiveCount = new LongAdder();
+
+    @Autowired
+    public MemberNameFilter(@Value("${jpashop.cache.member-name.enabled:true}") boolean enabled,
+                            @Value("${jpashop.cache.member-name.expected-names:1000000}") int expectedNames,
+                            @Value("${jpashop.cache.member-name.false-positive-rate:0.01}") double falsePositiveRate,
+                            MemberRepository memberRepository,
+                            PlatformTransactionManager transactionManager) {
+        this(enabled, expectedNames, falsePositiveRate);
+        this.ready = false;
+        this.memberRepository = memberRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * 데이터베이스 없이 바로 사용할 수 있는 필터 (테스트용)
+     */
+    MemberNameFilter(boolean enabled, int expectedNames, double falsePositiveRate) {
+        if (expectedNames < 1) throw new IllegalArgumentException("expectedNames는 1 이상이어야 합니다.");
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) throw new IllegalArgumentException("falsePositiveRate는 0과 1 사이여야 합니다.");
+        this.enabled = enabled;
+        // m = -n ln(p) / (ln 2)^2, k = m / n * ln 2
+        long optimalBits = (long) Math.ceil(-expectedNames * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitCount = Math.max(64, (optimalBits + 63) / 64 * 64);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedNames * Math.log(2)));
+        this.bits = new AtomicLongArray(enabled ? (int) (bitCount / 64) : 0);
+        this.ready = true;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) return;
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> memberRepository.scrollAllNames(1000, this::put));
+        ready = true;
+        log.info("회원 이름 필터 준비 완료 names={}, bits={}, hashes={}, {}ms",
+                nameCount.sum(), bitCount, hashCount, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * @return false 면 확실히 없는 이름, true 면 있을 수도 있는 이름
+     */
+    public boolean mightContain(String name) {
+        if (!enabled || !ready || name == null) {
+            checkCount.increment();
+            return true;
+        }
+        long hash = hash(name);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                skipCount.increment();
+                return false;
+            }
+        }
+        checkCount.increment();
+        return true;
+    }
+
+    public void put(String name) {
+        if (!enabled || name == null) return;
+        long hash = hash(name);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+            long mask = 1L << bit;
+            bits.getAndAccumulate((int) (bit >>> 6), mask, (current, m) -> current | m);
+        }
+        nameCount.increment();
+    }
+
+    /**
+     * mightContain()이 true 였지만 데이터베이스에 없던 이름
+     */
+    public void recordFalsePositive() {
+        if (enabled && ready) falsePositiveCount.increment();
+    }
+
+    public Stats getStats() {
+        return new Stats(enabled, ready, nameCount.sum(), bitCount, hashCount,
+                skipCount.sum(), checkCount.sum(), falsePositiveCount.sum());
+    }
+
+    // FNV-1a 64비트 해시, 상위/하위 32비트를 두 해시 함수로 써서 hashCount 개의 위치를 만든다. (double hashing)
+    private static long hash(String name) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        // FNV 는 하위 비트 분산이 약해 한번 더 섞는다. (MurmurHash3 fmix64)
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    @Data
+    public static class Stats {
+        private final boolean enabled;
+        private final boolean ready;
+        private final long nameCount; // 필터에 넣은 이름 수
+        private final long bitCount;
+        private final int hashCount;
+        private final long skipCount; // 확실히 없는 이름이라 조회를 건너뛴 수
+        private final long checkCount; // 데이터베이스에서 확인한 수
+        private final long falsePositiveCount; // 확인해보니 없던 수
+
+        public double getFalsePositiveRate() {
+            long negativeCount = skipCount + falsePositiveCount;
+            return negativeCount == 0 ? 0 : (double) falsePositiveCount / negativeCount;
+        }
+    }
+}
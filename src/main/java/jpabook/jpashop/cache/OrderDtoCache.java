@@ -0,0 +1,186 @@
+package jpabook.jpashop.cache;
+
+import jpabook.jpashop.service.dto.OrderDto;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * 주문 아이디로 OrderDto 를 보관하는 애플리케이션 캐시
+ *
+ * - 최대 크기를 넘으면 가장 오래 조회되지 않은 주문부터 제거한다. (LRU, access-order LinkedHashMap)
+ * - 저장 후 ttl 이 지난 값은 조회 시점에 제거한다.
+ * - OrderDto 는 주문, 회원(이름), 배송(주소) 세 엔티티로 만들어지므로, 회원이나 배송이 바뀌었을 때 해당 주문을 찾아 지울 수 있도록
+ *   회원 아이디 -> 주문 아이디들, 배송 아이디 -> 주문 아이디 역색인을 함께 관리한다.
+ *
+ * [stamp]
+ * 데이터베이스에서 읽는 도중 다른 트랜잭션이 수정을 커밋하고 캐시를 비우면, 읽고 있던 옛날 값이 그 뒤에 캐시에 들어갈 수 있다.
+ * 그래서 조회 전에 currentStamp()를 받아두고, 그 사이에 무효화가 한번이라도 있었다면 put()에서 저장하지 않는다.
+ *
+ * 모든 연산은 하나의 락으로 보호한다. 연산이 모두 O(1)이라 락을 잡는 시간이 짧다.
+ */
+@Component
+public class OrderDtoCache {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    private final LinkedHashMap<Long, CachedOrder> orders;
+    private final Map<Long, Set<Long>> orderIdsByMemberId = new HashMap<>();
+    private final Map<Long, Long> orderIdByDeliveryId = new HashMap<>();
+
+    private long stamp;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long expirationCount;
+    private long invalidationCount;
+
+    @Autowired
+    public OrderDtoCache(@Value("${jpashop.cache.order-dto.max-size:10000}") int maxSize,
+                         @Value("${jpashop.cache.order-dto.ttl:5m}") Duration ttl) {
+        this(maxSize, ttl, System::nanoTime);
+    }
+
+    OrderDtoCache(int maxSize, Duration ttl, LongSupplier nanoClock) {
+        if (maxSize < 1) throw new IllegalArgumentException("maxSize는 1 이상이어야 합니다.");
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+        this.orders = new LinkedHashMap<Long, CachedOrder>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedOrder> eldest) {
+                if (size() <= OrderDtoCache.this.maxSize) return false;
+                evictionCount++;
+                unindex(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    public synchronized OrderDto get(Long orderId) {
+        CachedOrder cached = orders.get(orderId);
+        if (cached == null) {
+            missCount++;
+            return null;
+        }
+        if (nanoClock.getAsLong() - cached.cachedAt >= ttlNanos) {
+            remove(orderId);
+            expirationCount++;
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return cached.orderDto;
+    }
+
+    public synchronized long currentStamp() {
+        return stamp;
+    }
+
+    /**
+     * @param stamp 데이터베이스 조회 전에 받아둔 currentStamp() 값, 그 사이 무효화가 있었다면 저장하지 않는다.
+     */
+    public synchronized void put(OrderDto orderDto, Long memberId, Long deliveryId, long stamp) {
+        if (this.stamp != stamp) return;
+
+        Long orderId = orderDto.getOrderId();
+        remove(orderId);
+        orders.put(orderId, new CachedOrder(orderDto, memberId, deliveryId, nanoClock.getAsLong()));
+        orderIdsByMemberId.computeIfAbsent(memberId, id -> new HashSet<>()).add(orderId);
+        orderIdByDeliveryId.put(deliveryId, orderId);
+    }
+
+    public synchronized void evictOrder(Long orderId) {
+        invalidate();
+        remove(orderId);
+    }
+
+    public synchronized void evictMember(Long memberId) {
+        invalidate();
+        Set<Long> orderIds = orderIdsByMemberId.get(memberId);
+        if (orderIds == null) return;
+        // remove()가 역색인을 수정하므로 복사해서 순회한다.
+        for (Long orderId : new HashSet<>(orderIds)) {
+            remove(orderId);
+        }
+    }
+
+    public synchronized void evictDelivery(Long deliveryId) {
+        invalidate();
+        Long orderId = orderIdByDeliveryId.get(deliveryId);
+        if (orderId != null) remove(orderId);
+    }
+
+    public synchronized void clear() {
+        invalidate();
+        orders.clear();
+        orderIdsByMemberId.clear();
+        orderIdByDeliveryId.clear();
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(orders.size(), maxSize, hitCount, missCount, evictionCount, expirationCount, invalidationCount);
+    }
+
+    private void invalidate() {
+        stamp++;
+        invalidationCount++;
+    }
+
+    private void remove(Long orderId) {
+        CachedOrder removed = orders.remove(orderId);
+        if (removed != null) unindex(removed);
+    }
+
+    private void unindex(CachedOrder cached) {
+        Long orderId = cached.orderDto.getOrderId();
+        Set<Long> orderIds = orderIdsByMemberId.get(cached.memberId);
+        if (orderIds != null) {
+            orderIds.remove(orderId);
+            if (orderIds.isEmpty()) orderIdsByMemberId.remove(cached.memberId);
+        }
+        orderIdByDeliveryId.remove(cached.deliveryId, orderId);
+    }
+
+    private static class CachedOrder {
+        final OrderDto orderDto;
+        final Long memberId;
+        final Long deliveryId;
+        final long cachedAt;
+
+        CachedOrder(OrderDto orderDto, Long memberId, Long deliveryId, long cachedAt) {
+            this.orderDto = orderDto;
+            this.memberId = memberId;
+            this.deliveryId = deliveryId;
+            this.cachedAt = cachedAt;
+        }
+    }
+
+    @Data
+    public static class Stats {
+        private final int size;
+        private final int maxSize;
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount; // 최대 크기 초과로 제거된 수
+        private final long expirationCount; // ttl 만료로 제거된 수
+        private final long invalidationCount; // 수정, 삭제 이벤트로 무효화한 수
+
+        public double getHitRatio() {
+            long requestCount = hitCount + missCount;
+            return requestCount == 0 ? 0 : (double) hitCount / requestCount;
+        }
+    }
+}
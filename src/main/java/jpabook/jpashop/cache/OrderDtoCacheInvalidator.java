@@ -0,0 +1,70 @@
+package jpabook.jpashop.cache;
+
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * 주문, 배송, 회원이 수정/삭제되면 OrderDtoCache 에서 관련된 주문을 제거한다.
+ *
+ * 커밋 이후(POST_COMMIT_UPDATE, POST_COMMIT_DELETE)에 제거한다.
+ * 플러시 시점에 제거하면 커밋 전까지 다른 요청이 아직 커밋되지 않은(=데이터베이스에는 옛날 값인) 상태로 캐시를 다시 채울 수 있고,
+ * 롤백된 변경에도 캐시를 비우게 된다.
+ *
+ * JPQL 벌크 연산(update, delete 쿼리)은 엔티티 이벤트를 발생시키지 않으므로, 벌크 연산 후에는 OrderDtoCache.clear()를 직접 호출해야 한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderDtoCacheInvalidator implements PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final OrderDtoCache orderDtoCache;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        evict(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        evict(event.getEntity());
+    }
+
+    private void evict(Object entity) {
+        if (entity instanceof Order) {
+            orderDtoCache.evictOrder(((Order) entity).getId());
+        } else if (entity instanceof Delivery) {
+            orderDtoCache.evictDelivery(((Delivery) entity).getId());
+        } else if (entity instanceof Member) {
+            orderDtoCache.evictMember(((Member) entity).getId());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        Class<?> entityClass = persister.getMappedClass();
+        return entityClass == Order.class || entityClass == Delivery.class || entityClass == Member.class;
+    }
+}
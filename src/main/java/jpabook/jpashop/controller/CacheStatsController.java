@@ -0,0 +1,68 @@
+package jpabook.jpashop.controller;
+
+import jpabook.jpashop.cache.MemberNameFilter;
+import jpabook.jpashop.cache.OrderDtoCache;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 캐시 통계 조회
+ * hibernate.generate_statistics 가 꺼져 있으면 모든 값이 0으로 나온다.
+ */
+@RestController
+@RequiredArgsConstructor
+public class CacheStatsController {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final OrderDtoCache orderDtoCache;
+    private final MemberNameFilter memberNameFilter;
+
+    // 2차 캐시 영역별 히트/미스/저장 횟수
+    @GetMapping("/cache/stats/second-level")
+    public List<RegionStatsDto> findSecondLevelCacheStats() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .map(regionName -> new RegionStatsDto(regionName, statistics.getDomainDataRegionStatistics(regionName)))
+                .collect(Collectors.toList());
+    }
+
+    // 주문 DTO 캐시 크기, 히트율, 제거(LRU)/만료(ttl)/무효화 횟수
+    @GetMapping("/cache/stats/order-dto")
+    public OrderDtoCache.Stats findOrderDtoCacheStats() {
+        return orderDtoCache.getStats();
+    }
+
+    // 회원 이름 필터 - 조회를 건너뛴 수, 데이터베이스 확인 수, 오탐 수와 오탐률
+    @GetMapping("/cache/stats/member-name")
+    public MemberNameFilter.Stats findMemberNameFilterStats() {
+        return memberNameFilter.getStats();
+    }
+
+    @Data
+    static class RegionStatsDto {
+        private String region;
+        private long hitCount;
+        private long missCount;
+        private long putCount;
+        private double hitRatio;
+
+        public RegionStatsDto(String region, CacheRegionStatistics statistics) {
+            this.region = region;
+            hitCount = statistics.getHitCount();
+            missCount = statistics.getMissCount();
+            putCount = statistics.getPutCount();
+            long requestCount = hitCount + missCount;
+            hitRatio = requestCount == 0 ? 0 : (double) hitCount / requestCount;
+        }
+    }
+}
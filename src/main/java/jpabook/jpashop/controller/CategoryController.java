@@ -0,0 +1,81 @@
+package jpabook.jpashop.controller;
+
+import jpabook.jpashop.cache.CategoryTree;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.service.CategoryService;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 카테고리 탐색 API
+ */
+@RestController
+@RequiredArgsConstructor
+public class CategoryController {
+
+    private static final int MAX_LIMIT = 100;
+
+    private final CategoryService categoryService;
+
+    // 카테고리 전체 트리, 쿼리 없이 캐시된 트리를 변환한다.
+    @GetMapping("/categories")
+    public List<CategoryDto> findTree() {
+        return categoryService.getTree().getRoots().stream()
+                .map(CategoryDto::new)
+                .collect(Collectors.toList());
+    }
+
+    // 카테고리와 하위 카테고리 전체의 상품
+    @GetMapping("/categories/{categoryId}/items")
+    public List<CategoryItemDto> findItems(@PathVariable Long categoryId,
+                                           @RequestParam(defaultValue = "0") int offset,
+                                           @RequestParam(defaultValue = "20") int limit) {
+        if (offset < 0 || limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "offset 은 0 이상, limit 은 1 ~ " + MAX_LIMIT + " 사이여야 합니다.");
+        }
+        try {
+            return categoryService.findItems(categoryId, offset, limit).stream()
+                    .map(CategoryItemDto::new)
+                    .collect(Collectors.toList());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+        }
+    }
+
+    @Data
+    static class CategoryDto {
+        private Long categoryId;
+        private String name;
+        private List<CategoryDto> children;
+
+        public CategoryDto(CategoryTree.Node node) {
+            categoryId = node.getId();
+            name = node.getName();
+            children = node.getChildren().stream()
+                    .map(CategoryDto::new)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @Data
+    static class CategoryItemDto {
+        private Long itemId;
+        private String name;
+        private int price;
+
+        public CategoryItemDto(Item item) {
+            itemId = item.getId();
+            name = item.getName();
+            price = item.getPrice();
+        }
+    }
+}
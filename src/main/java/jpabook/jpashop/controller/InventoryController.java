@@ -0,0 +1,51 @@
+package jpabook.jpashop.controller;
+
+import jpabook.jpashop.inventory.InventoryReservation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * 메모리 재고 예약 API (선착순 판매)
+ */
+@RestController
+@RequiredArgsConstructor
+public class InventoryController {
+
+    private final InventoryReservation inventoryReservation;
+
+    // 예약 아이디를 돌려준다. 재고가 부족하면 409
+    @PostMapping("/inventory/{itemId}/reserve")
+    public Long reserve(@PathVariable Long itemId, @RequestParam(defaultValue = "1") int quantity) {
+        try {
+            return inventoryReservation.reserve(itemId, quantity);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage(), e);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    // 없는 예약이면 404, 이미 취소했거나 반영하지 못한 예약이면 409
+    @PostMapping("/inventory/reservations/{reservationId}/release")
+    public void release(@PathVariable Long reservationId) {
+        try {
+            inventoryReservation.release(reservationId);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage(), e);
+        }
+    }
+
+    // 메모리 상품 수, 반영하지 않은 변경량, 기록하지 않은 예약 수, 예약/거절/반영 횟수, 예약 지연 시간 백분위(마이크로초)
+    @GetMapping("/inventory/stats")
+    public InventoryReservation.Stats findStats() {
+        return inventoryReservation.getStats();
+    }
+}
@@ -0,0 +1,116 @@
+package jpabook.jpashop.controller;
+
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.query.FieldSetQueryRepository;
+import jpabook.jpashop.repository.query.FieldSetRows;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.dto.ItemUpdateCommand;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 상품 조회, 수정 API
+ */
+@RestController
+@RequiredArgsConstructor
+public class ItemApiController {
+
+    private static final int MAX_BULK_SIZE = 10000;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final ItemService itemService;
+    private final FieldSetQueryRepository fieldSetQueryRepository;
+
+    /**
+     * 상품 목록에서 필요한 필드만 조회한다. (예: /items?fields=name,price)
+     * 하위 타입(Book, Album, Movie)의 필드는 고를 수 없다. 아이디는 항상 포함되며 키셋 페이징의 cursor 로 사용한다.
+     */
+    @GetMapping("/items")
+    public FieldSetRows findItemFields(@RequestParam(value = "fields", defaultValue = "name,price") String fields,
+                                       @RequestParam(value = "cursor", required = false) Long cursor,
+                                       @RequestParam(value = "size", defaultValue = "20") int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size는 1 이상 " + MAX_PAGE_SIZE + " 이하여야 합니다.");
+        }
+        try {
+            return fieldSetQueryRepository.findFields(Item.class, fields, Set.of(), cursor, size);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 상품 부분 수정 - 요청에 담긴 필드만 바꾼다.
+     * 요청 예시: {"version": 3, "price": 12000}
+     * 버전을 넘겼는데 그 사이 다른 수정이 있었다면 409
+     */
+    @PatchMapping("/items/{itemId}")
+    public ItemDto updateItem(@PathVariable Long itemId, @RequestBody ItemUpdateCommand command) {
+        try {
+            return new ItemDto(itemService.updateItem(itemId, command));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        } catch (OptimisticLockingFailureException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "다른 사용자가 먼저 수정했습니다. 다시 조회해 주세요.", e);
+        }
+    }
+
+    /**
+     * 상품 가격 일괄 조정
+     * 요청 예시: {"itemIds": [1, 2, 3], "percent": -10}
+     */
+    @PostMapping("/items/prices/adjust")
+    public AdjustPricesResponse adjustPrices(@RequestBody AdjustPricesRequest request) {
+        if (request.getItemIds().size() > MAX_BULK_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "상품 수는 " + MAX_BULK_SIZE + " 이하여야 합니다.");
+        }
+        try {
+            return new AdjustPricesResponse(itemService.adjustPrices(request.getItemIds(), request.getPercent()));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    @Data
+    static class ItemDto {
+        private Long itemId;
+        private String name;
+        private int price;
+        private Long version;
+
+        // 서비스 트랜잭션이 커밋되면서 flush 할 때 올라간 버전이 엔티티에 반영되어 있다.
+        public ItemDto(Item item) {
+            itemId = item.getId();
+            name = item.getName();
+            price = item.getPrice();
+            version = item.getVersion();
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    static class AdjustPricesRequest {
+        private List<Long> itemIds = new ArrayList<>();
+        private int percent;
+    }
+
+    @Data
+    static class AdjustPricesResponse {
+        private final int updatedCount;
+    }
+}
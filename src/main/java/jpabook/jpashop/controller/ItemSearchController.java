@@ -0,0 +1,43 @@
+package jpabook.jpashop.controller;
+
+import jpabook.jpashop.search.ItemSearchIndex;
+import jpabook.jpashop.search.ItemSearchResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+/**
+ * 상품 이름 검색 API, 데이터베이스를 조회하지 않고 ItemSearchIndex 에서 찾는다.
+ */
+@RestController
+@RequiredArgsConstructor
+public class ItemSearchController {
+
+    private static final int MAX_LIMIT = 100;
+
+    private final ItemSearchIndex itemSearchIndex;
+
+    // 검색어의 모든 단어가 이름에 들어있는 상품, 아이디 순서
+    @GetMapping("/items/search")
+    public List<ItemSearchResult> search(@RequestParam String q, @RequestParam(defaultValue = "20") int limit) {
+        return itemSearchIndex.search(q, checkLimit(limit));
+    }
+
+    // 접두사로 시작하는 단어, 상품이 많은 순서
+    @GetMapping("/items/autocomplete")
+    public List<String> autocomplete(@RequestParam String prefix, @RequestParam(defaultValue = "10") int limit) {
+        return itemSearchIndex.autocomplete(prefix, checkLimit(limit));
+    }
+
+    private int checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit 은 1 ~ " + MAX_LIMIT + " 사이여야 합니다.");
+        }
+        return limit;
+    }
+}
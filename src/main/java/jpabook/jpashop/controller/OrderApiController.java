@@ -0,0 +1,43 @@
+package jpabook.jpashop.controller;
+
+import jpabook.jpashop.service.OrderService;
+import jpabook.jpashop.service.dto.BulkOrderResult;
+import jpabook.jpashop.service.dto.OrderCreateCommand;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+/**
+ * 주문 등록 API
+ */
+@RestController
+@RequiredArgsConstructor
+public class OrderApiController {
+
+    // 한 요청의 주문은 하나의 트랜잭션으로 저장되므로, 트랜잭션이 너무 길어지지 않도록 요청 크기를 제한한다.
+    private static final int MAX_BULK_SIZE = 10000;
+
+    private final OrderService orderService;
+
+    /**
+     * 주문 대량 등록 (제휴 채널 주문 가져오기)
+     * 요청 예시: [{"memberId": 1, "orderLines": [{"itemId": 2, "count": 1}, {"itemId": 3, "count": 2}]}]
+     * 응답으로 저장한 행 수와 초당 insert 수를 돌려준다.
+     */
+    @PostMapping("/orders/bulk")
+    public BulkOrderResult createOrders(@RequestBody List<OrderCreateCommand> commands) {
+        if (commands.isEmpty() || commands.size() > MAX_BULK_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "주문 수는 1 ~ " + MAX_BULK_SIZE + " 사이여야 합니다.");
+        }
+        try {
+            return orderService.createOrders(commands);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+}
@@ -1,24 +1,63 @@
 package jpabook.jpashop.controller;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
 import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.OrderFetchPlan;
 import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.query.FieldSetQueryRepository;
+import jpabook.jpashop.repository.query.FieldSetRows;
+import jpabook.jpashop.repository.query.OrderSimpleQueryDto;
+import jpabook.jpashop.repository.query.OrderSimpleQueryRepository;
+import jpabook.jpashop.service.OrderService;
+import jpabook.jpashop.service.dto.OrderDto;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @RestController
 @RequiredArgsConstructor
 public class OrderSimpleController {
 
+    private static final int MAX_SLICE_SIZE = 100;
+
+    // fields 파라미터로 따라갈 수 있는 주문의 연관관계
+    private static final Set<String> FIELD_ASSOCIATIONS = Set.of("member", "delivery");
+
+    // OrderWithItemsDto 가 사용하는 연관관계
+    private static final OrderFetchPlan WITH_ITEMS_FETCH_PLAN = OrderFetchPlan.of(
+            OrderFetchPlan.MEMBER, OrderFetchPlan.DELIVERY, OrderFetchPlan.ORDER_ITEMS_ITEM);
+
     private final OrderRepository orderRepository;
+    private final OrderSimpleQueryRepository orderSimpleQueryRepository;
+    private final FieldSetQueryRepository fieldSetQueryRepository;
+    private final OrderService orderService;
+    private final ObjectMapper objectMapper;
 
     /**
      * 에러 발생 REST API
@@ -187,46 +226,295 @@ public class OrderSimpleController {
 
     /**
      * 해결과정 - 4단계
+     * 프록시를 코드로 강제 초기화하는 대신, 함께 조회할 연관관계를 expand 파라미터로 받아 엔티티 그래프로 한번에 조회한다.
+     * (예: /order/4?expand=member,delivery,orderItems.item) 응답에는 expand 로 지정한 연관관계만 들어간다. (OrderExpandDto)
      */
     @GetMapping("/order/{orderId}")
-    public Order findOrder(@PathVariable("orderId") Long id) {
-        Order order = orderRepository.findOne(id);
-        order.getMember().getName();
-        order.getDelivery().getAddress(); // 프록시 강제 초기화
-        return order;
+    public OrderExpandDto findOrder(@PathVariable("orderId") Long id,
+                                    @RequestParam(value = "expand", defaultValue = "member,delivery") String expand) {
+        OrderFetchPlan fetchPlan = parseFetchPlan(expand);
+        Order order = orderService.findOrder(id, fetchPlan);
+        if (order == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "존재하지 않는 주문입니다. orderId=" + id);
+        return new OrderExpandDto(order, fetchPlan);
+    }
+
+    /**
+     * 주문 목록을 expand 로 지정한 연관관계와 함께 키셋 페이징으로 조회한다.
+     * 연관관계를 몇개 지정하든 쿼리는 최대 두번이다. (주문 + xToOne 한번, 컬렉션 한번 - OrderRepository.findAll)
+     */
+    @GetMapping("/orders/expand")
+    public CursorSlice<OrderExpandDto> findOrderSliceWithExpand(@RequestParam(value = "cursor", required = false) Long cursor,
+                                                                @RequestParam(value = "size", defaultValue = "20") int size,
+                                                                @RequestParam(value = "expand", required = false) String expand) {
+        validateSliceSize(size);
+        OrderFetchPlan fetchPlan = parseFetchPlan(expand);
+        List<Order> orders = orderService.findOrders(cursor, size + 1, fetchPlan);
+        return CursorSlice.of(orders, size, order -> new OrderExpandDto(order, fetchPlan));
+    }
+
+    private OrderFetchPlan parseFetchPlan(String expand) {
+        try {
+            return OrderFetchPlan.parse(expand);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
     }
 
     /**
      * 해결과정 - 5단계
+     * 자주 조회되는 주문은 매번 세 테이블을 조회해 DTO 를 다시 만들지 않도록 캐시에서 꺼내 반환한다.
+     * (주문, 배송, 회원이 수정, 삭제되면 캐시에서 바로 제거된다. - OrderDtoCacheInvalidator)
      */
     @GetMapping("/order/dto/{orderId}")
     public OrderDto findOrderReturnDTO(@PathVariable("orderId") Long id) {
-        Order order = orderRepository.findOne(id);
-        return new OrderDto(order);
+        return orderService.findOrderDto(id);
     }
 
     @GetMapping("/orders")
     public List<OrderDto> findOrderAll() {
-        List<Order> orders = orderRepository.findAll();
+        return orderService.findOrderDtos();
+    }
+
+    /**
+     * 해결과정 - 6단계
+     * 위 findOrderAll()은 주문을 조회하는 쿼리 1번, 주문마다 member와 delivery를 지연 로딩하는 쿼리가 각각 나가
+     * 주문 N개에 대해 총 1 + 2N 번의 쿼리가 실행된다. (N + 1 문제)
+     * 페치 조인으로 member, delivery 까지 한번에 조회해 주문 수와 관계없이 쿼리 한번으로 해결한다.
+     */
+    @GetMapping("/orders/fetch-join")
+    public List<OrderDto> findOrderAllWithFetchJoin() {
+        List<Order> orders = orderRepository.findAllWithMemberDelivery();
         return orders.stream()
                 .map(OrderDto::new)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 해결과정 - 7단계
+     * 6단계는 쿼리는 한번이지만 order, member, delivery 엔티티를 모두 영속성 컨텍스트에 올린 뒤 다시 DTO로 옮겨 담는다.
+     * JPQL new 명령어로 필요한 값만 DTO로 바로 조회해 엔티티 생성과 스냅샷 비용을 없앤다.
+     */
+    @GetMapping("/orders/query")
+    public List<OrderSimpleQueryDto> findOrderAllWithQueryDto() {
+        return orderSimpleQueryRepository.findOrderDtos();
+    }
+
+    /**
+     * 주문 목록에서 필요한 필드만 조회한다. (예: /orders?fields=orderStatus,member.name,delivery.address.city)
+     * 7단계처럼 select 절에 요청한 컬럼만 넣되, 어떤 컬럼을 조회할지는 요청마다 고른다. 회원, 배송은 그 필드를 요청했을 때만 조인한다.
+     * 아이디는 항상 포함되며 키셋 페이징의 cursor 로 사용한다.
+     */
+    @GetMapping(value = "/orders", params = "fields")
+    public FieldSetRows findOrderFields(@RequestParam("fields") String fields,
+                                        @RequestParam(value = "cursor", required = false) Long cursor,
+                                        @RequestParam(value = "size", defaultValue = "20") int size) {
+        validateSliceSize(size);
+        try {
+            return fieldSetQueryRepository.findFields(Order.class, fields, FIELD_ASSOCIATIONS, cursor, size);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 해결과정 - 8단계
+     * 지금까지의 목록 API는 주문 테이블 전체를 한번에 조회하므로, 주문이 쌓일수록 메모리와 응답 시간이 끝없이 늘어난다.
+     * order_id 기준 키셋 페이징으로 나눠 조회하고, 응답의 nextCursor 를 다음 요청의 cursor 로 넘겨 이어서 조회한다.
+     * (offset 페이징과 달리 뒤 페이지로 가도 조회 비용이 늘어나지 않는다.)
+     */
+    @GetMapping("/orders/slice")
+    public CursorSlice<OrderDto> findOrderSlice(@RequestParam(value = "cursor", required = false) Long cursor,
+                                                @RequestParam(value = "size", defaultValue = "20") int size) {
+        validateSliceSize(size);
+        // 다음 페이지 존재 여부를 알기 위해 하나 더 조회한다.
+        List<Order> orders = orderRepository.findAllWithMemberDelivery(cursor, size + 1);
+        return CursorSlice.of(orders, size, OrderDto::new);
+    }
+
+    private void validateSliceSize(int size) {
+        if (size < 1 || size > MAX_SLICE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size는 1 이상 " + MAX_SLICE_SIZE + " 이하여야 합니다.");
+        }
+    }
+
+    /**
+     * 주문 목록 + 주문 상품 조회
+     * orderItems(@OneToMany)를 페치 조인하면 row 가 주문 상품 수만큼 늘어나 페이징을 할 수 없다.
+     * 그래서 member, delivery(xToOne)만 페치 조인으로 키셋 페이징하고, orderItems 와 item 은 조회한 주문 아이디로 한번 더 조회한다.
+     * 페이지 크기와 관계없이 주문 1번 + 주문 상품과 상품 1번, 총 2번의 쿼리로 조회한다. (OrderRepository.findAll)
+     * open-in-view 를 껐으므로 지연 로딩에 맡기지 않고, DTO 에 필요한 연관관계를 서비스 트랜잭션 안에서 모두 조회한다.
+     */
+    @GetMapping("/orders/with-items")
+    public CursorSlice<OrderWithItemsDto> findOrderSliceWithItems(@RequestParam(value = "cursor", required = false) Long cursor,
+                                                                  @RequestParam(value = "size", defaultValue = "20") int size) {
+        validateSliceSize(size);
+        List<Order> orders = orderService.findOrders(cursor, size + 1, WITH_ITEMS_FETCH_PLAN);
+        return CursorSlice.of(orders, size, OrderWithItemsDto::new);
+    }
+
+    /**
+     * 해결과정 - 9단계
+     * 주문 전체를 내려받아야 하는 경우(정산 등)에는 페이징 대신 스트리밍으로 응답한다.
+     * List<Order>, List<OrderDto> 를 만들지 않고, 커서로 읽은 주문을 DTO로 바꾸는 즉시 응답 본문에 JSON 으로 써 내려간다.
+     * 영속성 컨텍스트도 일정 건수마다 비우므로 주문 수와 관계없이 메모리 사용량이 일정하다.
+     */
+    @GetMapping("/orders/export")
+    public void exportOrderAll(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (JsonGenerator generator = objectMapper.createGenerator(response.getOutputStream())) {
+            generator.writeStartArray();
+            orderService.exportAll(order -> writeOrder(generator, new OrderDto(order)));
+            generator.writeEndArray();
+        }
+    }
+
+    private void writeOrder(JsonGenerator generator, OrderDto orderDto) {
+        try {
+            generator.writeObject(orderDto);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CursorSlice<T> {
+        private List<T> content;
+        private Long nextCursor; // 다음 페이지 요청 시 cursor 로 전달, 마지막 페이지면 null
+        private boolean hasNext;
+
+        static <T> CursorSlice<T> of(List<Order> orders, int size, Function<Order, T> mapper) {
+            boolean hasNext = orders.size() > size;
+            List<Order> page = hasNext ? orders.subList(0, size) : orders;
+            Long nextCursor = hasNext ? page.get(page.size() - 1).getId() : null;
+            return new CursorSlice<>(
+                    page.stream().map(mapper).collect(Collectors.toList()),
+                    nextCursor,
+                    hasNext);
+        }
+    }
+
     @Data
-    static class OrderDto {
+    static class OrderWithItemsDto {
         private Long orderId;
         private String name;
-        private LocalDateTime orderDate; //주문시간 private OrderStatus orderStatus;
+        private LocalDateTime orderDate;
         private OrderStatus orderStatus;
         private Address address;
+        private List<OrderItemDto> orderItems;
 
-        public OrderDto(Order order) {
+        public OrderWithItemsDto(Order order) {
             orderId = order.getId();
             name = order.getMember().getName();
             orderDate = order.getOrderDateTime();
             orderStatus = order.getOrderStatus();
             address = order.getDelivery().getAddress();
+            orderItems = order.getOrderItems().stream()
+                    .map(OrderItemDto::new)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @Data
+    static class OrderItemDto {
+        private String itemName;
+        private int orderPrice;
+        private int count;
+
+        public OrderItemDto(OrderItem orderItem) {
+            itemName = orderItem.getItem().getName();
+            orderPrice = orderItem.getOrderPrice();
+            count = orderItem.getQuantity();
+        }
+    }
+
+    /**
+     * expand 로 지정한 연관관계만 담는 주문 DTO
+     * 지정하지 않은 연관관계는 Optional.empty() 로 두고 응답에서 뺀다. (NON_ABSENT)
+     * 조회하지 않은 연관관계에는 접근하지 않으므로 트랜잭션 밖에서 만들어도 지연 로딩이 일어나지 않는다.
+     */
+    @Data
+    @JsonInclude(JsonInclude.Include.NON_ABSENT)
+    static class OrderExpandDto {
+        private Long orderId;
+        private LocalDateTime orderDate;
+        private OrderStatus orderStatus;
+        private Optional<MemberDto> member;
+        private Optional<DeliveryDto> delivery;
+        private Optional<List<ExpandedOrderItemDto>> orderItems;
+
+        public OrderExpandDto(Order order, OrderFetchPlan fetchPlan) {
+            Set<String> paths = fetchPlan.getPaths();
+            orderId = order.getId();
+            orderDate = order.getOrderDateTime();
+            orderStatus = order.getOrderStatus();
+            member = paths.contains(OrderFetchPlan.MEMBER)
+                    ? Optional.ofNullable(order.getMember()).map(MemberDto::new)
+                    : Optional.empty();
+            delivery = paths.contains(OrderFetchPlan.DELIVERY)
+                    ? Optional.ofNullable(order.getDelivery()).map(DeliveryDto::new)
+                    : Optional.empty();
+            boolean withItem = paths.contains(OrderFetchPlan.ORDER_ITEMS_ITEM);
+            orderItems = paths.contains(OrderFetchPlan.ORDER_ITEMS)
+                    ? Optional.of(order.getOrderItems().stream()
+                            .map(orderItem -> new ExpandedOrderItemDto(orderItem, withItem))
+                            .collect(Collectors.toList()))
+                    : Optional.empty();
+        }
+
+        @Data
+        static class MemberDto {
+            private Long memberId;
+            private String name;
+            private Address address;
+
+            MemberDto(Member member) {
+                memberId = member.getId();
+                name = member.getName();
+                address = member.getAddress();
+            }
+        }
+
+        @Data
+        static class DeliveryDto {
+            private Long deliveryId;
+            private Address address;
+            private DeliveryStatus deliveryStatus;
+
+            DeliveryDto(Delivery delivery) {
+                deliveryId = delivery.getId();
+                address = delivery.getAddress();
+                deliveryStatus = delivery.getDeliveryStatus();
+            }
+        }
+
+        @Data
+        @JsonInclude(JsonInclude.Include.NON_ABSENT)
+        static class ExpandedOrderItemDto {
+            private Long orderItemId;
+            private int orderPrice;
+            private int count;
+            private Optional<ItemDto> item;
+
+            ExpandedOrderItemDto(OrderItem orderItem, boolean withItem) {
+                orderItemId = orderItem.getId();
+                orderPrice = orderItem.getOrderPrice();
+                count = orderItem.getQuantity();
+                item = withItem ? Optional.ofNullable(orderItem.getItem()).map(ItemDto::new) : Optional.empty();
+            }
+        }
+
+        @Data
+        static class ItemDto {
+            private Long itemId;
+            private String name;
+            private int price;
+
+            ItemDto(Item item) {
+                itemId = item.getId();
+                name = item.getName();
+                price = item.getPrice();
+            }
         }
     }
 
@@ -0,0 +1,85 @@
+package jpabook.jpashop.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 읽기/쓰기 DataSource 분리 (jpashop.datasource.routing.enabled=true 로 켠다.)
+ *
+ * 원본은 spring.datasource 설정을, 복제본은 jpashop.datasource.routing.replicas 설정을 사용한다. 커넥션 풀은 각각 따로 만든다.
+ * 원본 풀에는 스프링 부트 기본 DataSource 와 같이 spring.datasource.hikari.* 설정(풀 크기, 타임아웃 등)을 적용한다.
+ * 애플리케이션에 노출되는 DataSource 는 LazyConnectionDataSourceProxy(ReplicaRoutingDataSource) 하나다.
+ * 그래서 @Transactional(readOnly = true) 서비스의 조회는 복제본으로, 나머지는 원본으로 간다.
+ *
+ * 스키마 생성(ddl-auto)은 원본에서만 실행된다. 복제본에는 데이터베이스 복제로 같은 스키마와 데이터가 있어야 한다.
+ */
+@Configuration
+@EnableConfigurationProperties(DataSourceRoutingProperties.class)
+@ConditionalOnProperty(prefix = "jpashop.datasource.routing", name = "enabled")
+public class DataSourceRoutingConfig implements DisposableBean {
+
+    private final DataSourceRoutingProperties properties;
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private ReplicaRoutingDataSource routingDataSource;
+
+    public DataSourceRoutingConfig(DataSourceRoutingProperties properties) {
+        this.properties = properties;
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(DataSourceProperties primaryProperties, Environment environment) {
+        HikariDataSource primary = primaryProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        // 스프링 부트는 자동 설정한 DataSource 빈에만 @ConfigurationProperties 로 바인딩하므로 직접 바인딩한다.
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (primary.getPoolName() == null) primary.setPoolName("primary");
+        pools.add(primary);
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            DataSourceRoutingProperties.Replica replica = properties.getReplicas().get(i);
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("replica-" + i);
+            pool.setJdbcUrl(replica.getUrl());
+            pool.setUsername(replica.getUsername());
+            pool.setPassword(replica.getPassword());
+            pool.setReadOnly(true);
+            // 복제본이 떠 있지 않아도 애플리케이션은 시작되어야 한다. (상태 확인으로 되살린다.)
+            pool.setInitializationFailTimeout(-1);
+            // 복제본 커넥션을 오래 기다리지 않고 다음 복제본(또는 원본)으로 넘어간다.
+            pool.setConnectionTimeout(properties.getHealthCheckTimeoutSeconds() * 1000L);
+            pools.add(pool);
+            replicas.add(pool);
+        }
+
+        routingDataSource = new ReplicaRoutingDataSource(primary, replicas);
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Scheduled(fixedDelayString = "${jpashop.datasource.routing.health-check-interval-ms:5000}")
+    public void checkReplicaHealth() {
+        if (routingDataSource != null) routingDataSource.checkHealth(properties.getHealthCheckTimeoutSeconds());
+    }
+
+    @Override
+    public void destroy() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
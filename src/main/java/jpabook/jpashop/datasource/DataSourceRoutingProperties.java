@@ -0,0 +1,32 @@
+package jpabook.jpashop.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "jpashop.datasource.routing")
+public class DataSourceRoutingProperties {
+
+    private boolean enabled = false;
+
+    // 복제본 상태 확인 주기, 연결에 실패해 빠진 복제본도 이 주기로 다시 확인해 되살린다.
+    private long healthCheckIntervalMs = 5000;
+
+    // 상태 확인(Connection.isValid) 제한 시간
+    private int healthCheckTimeoutSeconds = 1;
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,109 @@
+package jpabook.jpashop.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 읽기 전용 트랜잭션은 복제본으로, 나머지는 원본(primary)으로 보내는 DataSource
+ *
+ * - 복제본은 돌아가며(round-robin) 고르고, 상태가 나쁜 복제본은 건너뛴다.
+ * - 복제본 연결에 실패하면 그 복제본을 빼고 다음 복제본을 시도한다. 쓸 수 있는 복제본이 없으면 원본을 사용한다.
+ * - 빠진 복제본은 checkHealth()가 다시 연결되는 것을 확인하면 되살린다.
+ *
+ * 읽기 전용 여부는 트랜잭션이 시작된 뒤에야 알 수 있다. (TransactionSynchronizationManager)
+ * 트랜잭션 매니저는 그 전에 커넥션을 얻으므로, LazyConnectionDataSourceProxy 로 감싸 첫 SQL 을 실행할 때 커넥션을 고르게 해야 한다.
+ *
+ * 복제본에는 원본의 변경이 늦게 반영될 수 있다. 방금 쓴 데이터를 바로 읽어야 하는 곳은 읽기 전용이 아닌 트랜잭션으로 조회해야 한다.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final AtomicIntegerArray healthy; // 1: 사용 가능, 0: 빠짐
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.healthy = new AtomicIntegerArray(replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            healthy.set(i, 1);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            Connection connection = replicaConnection(null, null);
+            if (connection != null) return connection;
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            Connection connection = replicaConnection(username, password);
+            if (connection != null) return connection;
+        }
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * 모든 복제본의 상태를 확인한다. 상태가 바뀐 복제본은 로그로 남긴다.
+     */
+    public void checkHealth(int timeoutSeconds) {
+        for (int i = 0; i < replicas.size(); i++) {
+            boolean valid;
+            try (Connection connection = replicas.get(i).getConnection()) {
+                valid = connection.isValid(timeoutSeconds);
+            } catch (SQLException e) {
+                valid = false;
+            }
+            int previous = healthy.getAndSet(i, valid ? 1 : 0);
+            if (previous == 1 && !valid) log.warn("복제본 {} 상태 확인 실패, 읽기 요청에서 제외합니다.", i);
+            if (previous == 0 && valid) log.info("복제본 {} 복구, 읽기 요청에 다시 사용합니다.", i);
+        }
+    }
+
+    public boolean isHealthy(int replicaIndex) {
+        return healthy.get(replicaIndex) == 1;
+    }
+
+    public int getReplicaCount() {
+        return replicas.size();
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    /**
+     * @return 연결할 수 있는 복제본이 없으면 null
+     */
+    private Connection replicaConnection(String username, String password) {
+        int size = replicas.size();
+        if (size == 0) return null;
+        int start = Math.floorMod(cursor.getAndIncrement(), size);
+        for (int n = 0; n < size; n++) {
+            int i = (start + n) % size;
+            if (healthy.get(i) == 0) continue;
+            try {
+                DataSource replica = replicas.get(i);
+                return username == null ? replica.getConnection() : replica.getConnection(username, password);
+            } catch (SQLException e) {
+                if (healthy.getAndSet(i, 0) == 1) log.warn("복제본 {} 연결 실패, 읽기 요청에서 제외합니다.", i, e);
+            }
+        }
+        return null;
+    }
+}
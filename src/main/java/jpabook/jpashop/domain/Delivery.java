@@ -3,6 +3,8 @@ package jpabook.jpashop.domain;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.LazyToOne;
+import org.hibernate.annotations.LazyToOneOption;
 
 import javax.persistence.*;
 
@@ -10,12 +12,15 @@ import javax.persistence.*;
 @Getter @Setter
 public class Delivery {
 
-    @Id @GeneratedValue
+    @Id @GeneratedValue(generator = PooledLoSequenceGenerator.NAME)
     @Column(name = "delivery_id")
     private Long id;
 
+    // 연관관계의 주인이 아닌 일대일은 외래 키가 없어 프록시를 만들 수 없다. (null 인지 알려면 주문을 조회해야 한다.)
+    // 바이트코드 향상(build.gradle)된 엔티티에서 NO_PROXY 로 지정하면, 프록시 대신 필드에 처음 접근할 때 조회한다.
     @JsonIgnore
     @OneToOne(mappedBy = "delivery", fetch = FetchType.LAZY)
+    @LazyToOne(LazyToOneOption.NO_PROXY)
     private Order order;
 
     @Embedded
@@ -2,17 +2,28 @@ package jpabook.jpashop.domain;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * 회원 정보는 거의 바뀌지 않으므로 2차 캐시에 저장해, 식별자로 조회할 때 데이터베이스를 거치지 않도록 한다.
+ * 이름은 중복될 수 없다. 동시에 같은 이름으로 가입해도 유니크 제약(uk_member_name)으로 하나만 저장되고, 이름 조회는 이 제약의 인덱스를 사용한다.
+ */
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = Member.UK_NAME, columnNames = "name"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter @Setter
 public class Member {
 
+    public static final String UK_NAME = "uk_member_name";
+
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = PooledLoSequenceGenerator.NAME)
     private long id;
 
     private String name;
@@ -2,18 +2,41 @@ package jpabook.jpashop.domain;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * 연관관계는 모두 지연 로딩이고, 요청마다 함께 조회할 연관관계는 아래 엔티티 그래프로 고른다. (OrderFetchPlan)
+ * xToOne(member, delivery)과 컬렉션(orderItems)은 그래프를 나눠 둔다. 컬렉션을 페치 조인하면 row 가 늘어나 페이징 쿼리에 함께 쓸 수 없기 때문이다.
+ */
 @Entity
 @Table(name = "orders")
+@NamedEntityGraphs({
+        @NamedEntityGraph(name = Order.GRAPH_MEMBER, attributeNodes = @NamedAttributeNode("member")),
+        @NamedEntityGraph(name = Order.GRAPH_DELIVERY, attributeNodes = @NamedAttributeNode("delivery")),
+        @NamedEntityGraph(name = Order.GRAPH_MEMBER_DELIVERY, attributeNodes = {
+                @NamedAttributeNode("member"),
+                @NamedAttributeNode("delivery")
+        }),
+        @NamedEntityGraph(name = Order.GRAPH_ORDER_ITEMS, attributeNodes = @NamedAttributeNode("orderItems")),
+        @NamedEntityGraph(name = Order.GRAPH_ORDER_ITEMS_ITEM,
+                attributeNodes = @NamedAttributeNode(value = "orderItems", subgraph = "item"),
+                subgraphs = @NamedSubgraph(name = "item", attributeNodes = @NamedAttributeNode("item")))
+})
 @Getter @Setter
 public class Order {
 
-    @Id @GeneratedValue
+    public static final String GRAPH_MEMBER = "Order.member";
+    public static final String GRAPH_DELIVERY = "Order.delivery";
+    public static final String GRAPH_MEMBER_DELIVERY = "Order.member.delivery";
+    public static final String GRAPH_ORDER_ITEMS = "Order.orderItems";
+    public static final String GRAPH_ORDER_ITEMS_ITEM = "Order.orderItems.item";
+
+    @Id @GeneratedValue(generator = PooledLoSequenceGenerator.NAME)
     @Column(name = "order_id")
     private Long id;
 
@@ -22,6 +45,8 @@ public class Order {
     private Member member;
 
     // 한번에 여러개의 주문 아이템을 넣을 수 있으므로, cascade 설정
+    // 여러 주문의 orderItems 를 지연 로딩할 때, 주문마다 쿼리를 날리지 않고 IN 절로 최대 100개 주문씩 묶어 조회한다.
+    @BatchSize(size = 100)
     @OneToMany(mappedBy = "order", cascade = CascadeType.PERSIST)
     private List<OrderItem> orderItems = new ArrayList<>();
 
@@ -36,14 +61,14 @@ public class Order {
     private OrderStatus orderStatus;
 
 
-    public static Order createOrder(Member member, Delivery delivery, OrderItem orderItem1, OrderItem orderItem2) {
+    public static Order createOrder(Member member, Delivery delivery, OrderItem... orderItems) {
         Order order = new Order();
         order.setMember(member);
         order.setDelivery(delivery);
-        order.getOrderItems().add(orderItem1);
-        order.getOrderItems().add(orderItem2);
-        orderItem1.setOrder(order);
-        orderItem2.setOrder(order);
+        for (OrderItem orderItem : orderItems) {
+            order.getOrderItems().add(orderItem);
+            orderItem.setOrder(order);
+        }
         return order;
     }
 }
\ No newline at end of file
@@ -12,7 +12,7 @@ import javax.persistence.*;
 @Table(name = "order_item")
 public class OrderItem {
 
-    @Id @GeneratedValue
+    @Id @GeneratedValue(generator = PooledLoSequenceGenerator.NAME)
     @Column(name = "order_item_id")
     private Long id;
 
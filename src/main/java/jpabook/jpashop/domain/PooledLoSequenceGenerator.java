@@ -0,0 +1,47 @@
+package jpabook.jpashop.domain;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * 도메인 엔티티 공통 식별자 생성기 (package-info.java 에 NAME 으로 등록)
+ *
+ * - 엔티티마다 시퀀스를 따로 사용한다. (엔티티 이름 + _seq, 예: Order -> order_seq)
+ * - pooled-lo 최적화: 시퀀스를 한번 호출할 때마다 allocationSize 만큼 증가시키고, 받아온 값부터 allocationSize 개의 아이디를 메모리에서 나눠준다.
+ *   persist() 할 때 시퀀스 호출은 아이디 allocationSize 개마다 한번만 일어난다.
+ *   (pooled 와 달리 시퀀스 값이 블록의 시작값이라, 다른 애플리케이션이 시퀀스 값을 그대로 아이디로 써도 겹치지 않는다.)
+ * - allocationSize 는 spring.jpa.properties.jpashop.id.allocation_size 로 설정한다. (기본값 50)
+ *   시퀀스의 increment by 값과 같아야 하므로, 운영 중에 바꾸려면 시퀀스도 함께 변경해야 한다.
+ */
+public class PooledLoSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String NAME = "pooled_lo_sequence";
+    public static final String STRATEGY = "jpabook.jpashop.domain.PooledLoSequenceGenerator";
+
+    public static final String ALLOCATION_SIZE_SETTING = "jpashop.id.allocation_size";
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        int allocationSize = serviceRegistry.getService(ConfigurationService.class)
+                .getSetting(ALLOCATION_SIZE_SETTING, StandardConverters.INTEGER, DEFAULT_ALLOCATION_SIZE);
+        if (allocationSize < 1) {
+            throw new MappingException(ALLOCATION_SIZE_SETTING + " 는 1 이상이어야 합니다. allocation_size=" + allocationSize);
+        }
+
+        Properties settings = new Properties();
+        settings.putAll(params);
+        settings.putIfAbsent(INCREMENT_PARAM, String.valueOf(allocationSize));
+        settings.putIfAbsent(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+        settings.putIfAbsent(CONFIG_PREFER_SEQUENCE_PER_ENTITY, "true");
+        settings.putIfAbsent(CONFIG_SEQUENCE_PER_ENTITY_SUFFIX, "_seq");
+        super.configure(type, settings, serviceRegistry);
+    }
+}
@@ -0,0 +1,56 @@
+package jpabook.jpashop.domain;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.*;
+
+/**
+ * 재고 예약 기록 (InventoryReservation)
+ *
+ * 예약은 메모리에서 받고, 반영(flush)할 때 상품 재고 차감과 같은 트랜잭션으로 모아서 저장한다.
+ * 그래서 저장된 기록은 이미 재고에 반영된 결과(APPLIED, RELEASED, REJECTED)만 가진다.
+ * 아이디는 예약을 받을 때 메모리에서 정하므로 생성기를 쓰지 않는다.
+ * 상품과는 연관관계 없이 아이디만 가진다. (예약을 저장할 때 상품을 조회하거나 락을 잡지 않는다.)
+ */
+@Entity
+@Getter @Setter
+public class StockReservation {
+
+    @Id
+    @Column(name = "stock_reservation_id")
+    private Long id;
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    private int quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StockReservationStatus status;
+
+    // 취소가 겹치면(다른 프로세스 포함) 나중에 커밋하는 쪽이 실패하고 롤백되어, 같은 예약을 두번 되돌리지 않는다.
+    @Version
+    private Long version;
+
+    public static StockReservation createReservation(Long id, Long itemId, int quantity, StockReservationStatus status) {
+        StockReservation reservation = new StockReservation();
+        reservation.setId(id);
+        reservation.setItemId(itemId);
+        reservation.setQuantity(quantity);
+        reservation.setStatus(status);
+        return reservation;
+    }
+
+    /* 비즈니스 로직 */
+    /**
+     * 예약 취소
+     * @throws IllegalStateException 이미 취소했거나 반영하지 못한 예약일 때
+     */
+    public void release() {
+        if (status == StockReservationStatus.RELEASED) throw new IllegalStateException("이미 취소된 예약입니다.");
+        if (status == StockReservationStatus.REJECTED) throw new IllegalStateException("재고가 부족해 반영하지 못한 예약입니다.");
+        this.status = StockReservationStatus.RELEASED;
+    }
+}
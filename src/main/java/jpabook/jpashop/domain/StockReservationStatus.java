@@ -0,0 +1,7 @@
+package jpabook.jpashop.domain;
+
+public enum StockReservationStatus {
+    APPLIED, // 상품 재고에서 차감했다.
+    RELEASED, // 취소했다. (반영 후 취소했다면 재고를 되돌렸다.)
+    REJECTED // 반영할 때 재고가 부족해 차감하지 못했다.
+}
@@ -2,11 +2,13 @@ package jpabook.jpashop.domain.item;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.DiscriminatorValue;
 import javax.persistence.Entity;
 
 @Entity
+@DynamicUpdate
 @DiscriminatorValue("A")
 @Getter @Setter
 public class Album extends Item {
@@ -1,5 +1,6 @@
 package jpabook.jpashop.domain.item;
 
+import jpabook.jpashop.domain.PooledLoSequenceGenerator;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -7,14 +8,27 @@ import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * path 는 루트부터 부모까지 조상 아이디를 이어붙인 경로다. (루트 "/", 루트(1)의 자식 "/1/", 그 자식(5)의 자식 "/1/5/")
+ * 하위 카테고리 전체를 children 을 따라 노드마다 조회하지 않고, "path like '/1/5/%'" 조건 하나로 찾을 수 있다. (idx_category_path)
+ * 부모를 바꾸면 하위 카테고리의 path 도 함께 바꿔야 하므로 CategoryService.move()로만 옮긴다.
+ */
 @Entity
+@Table(indexes = @Index(name = "idx_category_path", columnList = "path"))
 @Getter @Setter
 public class Category {
+
+    public static final String ROOT_PATH = "/";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = PooledLoSequenceGenerator.NAME)
     @Column(name = "category_id")
     private Long id;
 
+    private String name;
+
+    @Column(nullable = false)
+    private String path = ROOT_PATH;
 
     @ManyToMany(cascade = CascadeType.ALL)
     @JoinTable(name = "category_item",
@@ -34,5 +48,39 @@ public class Category {
     @OneToMany(mappedBy = "parent") // db에 생성 안됨
     private List<Category> children = new ArrayList<>();
 
+    /**
+     * @param parent 루트 카테고리면 null, 아이디가 있어야 한다. (영속 상태)
+     */
+    public static Category createCategory(String name, Category parent) {
+        Category category = new Category();
+        category.setName(name);
+        if (parent != null) category.changeParent(parent);
+        return category;
+    }
+
+    /**
+     * 하위 카테고리의 path 는 바꾸지 않는다. (CategoryService.move)
+     */
+    public void changeParent(Category parent) {
+        if (this.parent != null) this.parent.getChildren().remove(this);
+        this.parent = parent;
+        if (parent == null) {
+            this.path = ROOT_PATH;
+        } else {
+            parent.getChildren().add(this);
+            this.path = parent.getDescendantPath();
+        }
+    }
+
+    /**
+     * @return 하위 카테고리들의 path 가 시작하는 경로
+     */
+    public String getDescendantPath() {
+        return path + id + "/";
+    }
 
-}
\ No newline at end of file
+    public void addItem(Item item) {
+        items.add(item);
+        item.getCategories().add(this);
+    }
+}
@@ -1,20 +1,40 @@
 package jpabook.jpashop.domain.item;
 
+import jpabook.jpashop.domain.PooledLoSequenceGenerator;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * OrderItem.item 처럼 Item 을 가리키는 지연 로딩 프록시를 초기화할 때, 영속성 컨텍스트에 있는 다른 Item 프록시까지 IN 절로 한번에 조회한다.
+ * (@ManyToOne 대상의 배치 크기는 대상 엔티티 클래스에 지정한다.)
+ *
+ * 상품 정보는 자주 바뀌지 않으므로 2차 캐시에 저장한다.
+ * SINGLE_TABLE 상속이라 Book, Album, Movie 모두 최상위 엔티티인 Item 의 캐시 영역을 함께 사용한다.
+ *
+ * 변경 감지로 update 할 때 바뀐 컬럼만 set 절에 넣는다. (@DynamicUpdate, 하위 타입에도 각각 지정한다.)
+ * 가격만 바꿔도 모든 컬럼을 보내던 update 가 "set price=?, version=?" 로 줄어든다.
+ * 대신 update SQL 을 미리 만들어 두지 못하고 매번 만든다.
+ */
 @Entity
+@DynamicUpdate
+@BatchSize(size = 100)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "dtype")
 @Getter @Setter
 public abstract class Item {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = PooledLoSequenceGenerator.NAME)
     @Column(name = "item_id")
     private Long id;
 
@@ -24,6 +44,14 @@ public abstract class Item {
 
     private int stockQuantity;
 
+    /**
+     * 낙관적 락 - 수정할 때 where 절에 조회 시점의 버전을 함께 걸어, 그 사이 다른 트랜잭션이 수정했다면 실패(OptimisticLockException)한다.
+     * 재고처럼 동시에 수정되는 값의 갱신 손실을 막는다. (StockService)
+     * 준영속 상품을 merge 할 때는 조회 시점의 버전을 함께 넘겨야 한다. 버전이 없으면 새로운 상품으로 보고 저장한다.
+     */
+    @Version
+    private Long version;
+
     @ManyToMany(mappedBy = "items")
     private List<Category> categories = new ArrayList<>();
 
@@ -0,0 +1,8 @@
+/**
+ * 도메인 엔티티는 @GeneratedValue(generator = PooledLoSequenceGenerator.NAME) 로 아이디를 생성한다.
+ * (패키지에 선언한 식별자 생성기는 다른 패키지의 엔티티에서도 이름으로 사용할 수 있다.)
+ */
+@GenericGenerator(name = PooledLoSequenceGenerator.NAME, strategy = PooledLoSequenceGenerator.STRATEGY)
+package jpabook.jpashop.domain;
+
+import org.hibernate.annotations.GenericGenerator;
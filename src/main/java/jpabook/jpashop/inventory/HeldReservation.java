@@ -0,0 +1,67 @@
+package jpabook.jpashop.inventory;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 받았지만 아직 예약 기록(StockReservation)을 저장하지 않은 예약
+ *
+ * 취소(release)와 기록 저장(flush)이 겹치면 상태 CAS 에 먼저 성공한 쪽만 진행한다.
+ * 기록 중(JOURNALING)인 예약을 취소하려면 반영이 끝난 뒤 저장된 기록으로 취소한다.
+ */
+class HeldReservation {
+
+    enum State {
+        HELD, // 메모리에만 있다.
+        RELEASED, // 기록하기 전에 취소했다. (재고는 카운터에서 이미 되돌렸다.)
+        JOURNALING // 반영 중이다. 실패하면 HELD 로 돌아간다.
+    }
+
+    private final Long id;
+    private final Long itemId;
+    private final int quantity;
+    private final AtomicReference<State> state = new AtomicReference<>(State.HELD);
+
+    HeldReservation(Long id, Long itemId, int quantity) {
+        this.id = id;
+        this.itemId = itemId;
+        this.quantity = quantity;
+    }
+
+    /**
+     * @return HELD 였다면 true, 이미 취소했거나 반영 중이면 false
+     */
+    boolean release() {
+        return state.compareAndSet(State.HELD, State.RELEASED);
+    }
+
+    /**
+     * 반영할 예약으로 가져온다. 기록하기 전에 취소한 예약은 RELEASED 로 기록한다.
+     */
+    void claim() {
+        state.compareAndSet(State.HELD, State.JOURNALING);
+    }
+
+    void unclaim() {
+        state.compareAndSet(State.JOURNALING, State.HELD);
+    }
+
+    boolean isReleased() {
+        return state.get() == State.RELEASED;
+    }
+
+    boolean isJournaling() {
+        return state.get() == State.JOURNALING;
+    }
+
+    Long getId() {
+        return id;
+    }
+
+    Long getItemId() {
+        return itemId;
+    }
+
+    int getQuantity() {
+        return quantity;
+    }
+}
@@ -0,0 +1,71 @@
+package jpabook.jpashop.inventory;
+
+import jpabook.jpashop.domain.item.Item;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * 엔티티(Item.addStock, removeStock)로 바뀐 재고를 InventoryReservation 의 메모리 재고에 맞춘다.
+ *
+ * 커밋 이후(POST_COMMIT_UPDATE)에 변경 전후 stockQuantity 차이만큼 더한다. 롤백된 변경은 반영하지 않는다.
+ * 리스너 안에서는 데이터베이스에 접근하지 않는다. 변경 전 값을 모르면 다음 반영(flush) 때 카운터를 무효화한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class InventoryReconciler implements PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final String STOCK_QUANTITY = "stockQuantity";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final InventoryReservation inventoryReservation;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Item)) return;
+        Long itemId = (Long) event.getId();
+        Object[] oldState = event.getOldState();
+        if (oldState == null) {
+            // merge 없이 detached 상태를 update 한 경우 변경 전 값이 없다.
+            inventoryReservation.reconcile(itemId, 0, null);
+            return;
+        }
+
+        int index = event.getPersister().getEntityMetamodel().getPropertyIndex(STOCK_QUANTITY);
+        int delta = (int) event.getState()[index] - (int) oldState[index];
+        if (delta == 0) return;
+        Long version = (Long) event.getPersister().getVersion(event.getEntity());
+        inventoryReservation.reconcile(itemId, delta, version);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Item) {
+            inventoryReservation.remove((Long) event.getId());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return Item.class.isAssignableFrom(persister.getMappedClass());
+    }
+}
@@ -0,0 +1,422 @@
+package jpabook.jpashop.inventory;
+
+import jpabook.jpashop.domain.StockReservation;
+import jpabook.jpashop.domain.StockReservationStatus;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.monitor.LatencyHistogram;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.StockReservationRepository;
+import jpabook.jpashop.repository.query.ItemStockDto;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * 메모리 재고 예약 (선착순 판매처럼 같은 상품에 주문이 몰릴 때 사용)
+ *
+ * 조건부 update(StockService)는 주문마다 같은 상품 행을 update 하므로, 주문이 몰리면 행 락을 기다리는 줄이 길어진다.
+ * 여기서는 상품별 예약 가능 재고를 메모리의 StockCounter 에 두고 CAS 한번으로 확인, 차감한다. 예약은 락을 잡지 않고 데이터베이스에도 가지 않는다.
+ * jpashop.inventory.flush-interval-ms 마다 쌓인 변경량을 상품별로 합쳐 item.stock_quantity 에 반영하고,
+ * 그 사이에 받은 예약 기록(StockReservation)을 같은 트랜잭션으로 모아서 저장한다. (write-behind, 그룹 커밋)
+ *
+ * [Item.addStock / removeStock 과의 관계]
+ * - reserve()는 removeStock()처럼 재고가 부족하면 IllegalStateException("재고가 부족합니다.")을 던지고, 예약 아이디를 돌려준다.
+ *   release()는 그 예약 아이디로 아직 남아 있는 예약만 취소한다. (반영한 예약이면 addStock()처럼 재고를 되돌린다.)
+ * - 엔티티로 재고를 바꾸면 커밋 후 InventoryReconciler 가 바뀐 양만큼 메모리 재고를 맞춘다.
+ * - 데이터베이스 재고만 보고 차감하는 경로(StockService)는 먼저 drain()으로 쌓인 변경량을 반영하고,
+ *   이벤트가 없는 조건부 update 는 커밋 후 invalidate()로 카운터를 버린다. 다음 예약 때 데이터베이스에서 다시 불러온다.
+ * - 그래도 그 사이에 받은 예약은 재고를 넘을 수 있다. 반영할 때 재고가 음수가 되면 나중에 받은 예약부터 차감하지 않고
+ *   REJECTED 로 기록하고 에러 로그를 남긴다. 상품 재고는 어떤 경우에도 음수가 되지 않는다.
+ *
+ * [잠금]
+ * 예약과 아직 기록하지 않은 예약의 취소는 락을 잡지 않는다. (CAS 만 사용한다.)
+ * 반영, 카운터 불러오기, 반영한 예약의 취소는 flushLock 으로 서로 순서를 정한다. 불러오기가 반영 도중의 데이터베이스를 읽으면
+ * 비운 변경량이 메모리와 데이터베이스 어느 쪽에도 없는 것처럼 보이기 때문이다. 이미 불러온 상품의 예약은 이 락을 기다리지 않는다.
+ *
+ * [재시작]
+ * 정상 종료할 때는 모두 반영한다. 프로세스가 비정상 종료되면 마지막 반영 이후에 받은 예약(최대 flush-interval-ms 동안)은 기록과 함께 사라진다.
+ * 재고에서 차감하지도 않았으므로 재고를 넘겨 팔지는 않고, 그 예약 아이디로 취소하면 "존재하지 않는 예약"이 된다.
+ */
+@Slf4j
+@Component
+public class InventoryReservation {
+
+    private final ItemRepository itemRepository;
+    private final StockReservationRepository stockReservationRepository;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionTemplate newTransaction;
+
+    private final ConcurrentHashMap<Long, StockCounter> counters = new ConcurrentHashMap<>();
+    // 아직 기록하지 않은 예약 (취소할 때 아이디로 찾는다.)
+    private final ConcurrentHashMap<Long, HeldReservation> heldReservations = new ConcurrentHashMap<>();
+    // 다음 반영 때 기록할 예약, 받은 순서대로 쌓인다.
+    private final ConcurrentLinkedQueue<HeldReservation> journal = new ConcurrentLinkedQueue<>();
+    // 이벤트만으로는 메모리 재고를 맞출 수 없어, 다음 반영 때 무효화할 상품
+    private final Set<Long> staleItemIds = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    // 처음 카운터를 불러올 때 정한다. 비정상 종료로 기록하지 못한 예약 아이디를 재시작 후 다시 쓰지 않도록, 시작 시각(밀리초 x 1000)부터 매긴다.
+    private final AtomicLong reservationIds = new AtomicLong();
+    private volatile boolean reservationIdsInitialized;
+
+    private final LatencyHistogram reserveLatency = new LatencyHistogram();
+    private final LongAdder reserveCount = new LongAdder();
+    private final LongAdder rejectCount = new LongAdder();
+    private final LongAdder flushCount = new LongAdder();
+
+    public InventoryReservation(ItemRepository itemRepository, StockReservationRepository stockReservationRepository,
+                                EntityManagerFactory entityManagerFactory, PlatformTransactionManager transactionManager) {
+        this.itemRepository = itemRepository;
+        this.stockReservationRepository = stockReservationRepository;
+        this.entityManagerFactory = entityManagerFactory;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 메모리에서만 예약한다. 상품을 처음 예약할 때만 데이터베이스에서 재고를 불러온다.
+     * 호출한 쪽의 트랜잭션과 관계없으므로, 호출한 쪽이 롤백되면 돌려받은 예약 아이디로 release()를 호출해야 한다.
+     *
+     * @return 예약 아이디
+     * @throws IllegalStateException 재고가 부족할 때
+     * @throws IllegalArgumentException 상품이 없을 때
+     */
+    public Long reserve(Long itemId, int quantity) {
+        if (quantity < 1) throw new IllegalArgumentException("예약 수량은 1개 이상이어야 합니다. quantity=" + quantity);
+        long start = System.nanoTime();
+        try {
+            StockCounter counter = counters.get(itemId);
+            while (true) {
+                if (counter == null || counter.isRetired()) counter = load(itemId);
+                StockCounter.Result result = counter.reserve(quantity);
+                if (result == StockCounter.Result.RETIRED) continue;
+                if (result == StockCounter.Result.INSUFFICIENT) {
+                    rejectCount.increment();
+                    throw new IllegalStateException("재고가 부족합니다.");
+                }
+                HeldReservation reservation = new HeldReservation(reservationIds.incrementAndGet(), itemId, quantity);
+                heldReservations.put(reservation.getId(), reservation);
+                journal.add(reservation);
+                reserveCount.increment();
+                return reservation.getId();
+            }
+        } finally {
+            reserveLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 예약 취소 - 예약 아이디로 아직 남아 있는 예약만 취소한다.
+     * 기록하기 전이면 메모리 재고만 되돌리고, 이미 반영한 예약이면 상품 재고를 되돌린다.
+     *
+     * @throws IllegalArgumentException 예약이 없을 때
+     * @throws IllegalStateException 이미 취소했거나 재고가 부족해 반영하지 못한 예약일 때
+     */
+    public void release(Long reservationId) {
+        HeldReservation held = heldReservations.get(reservationId);
+        if (held != null && releaseHeld(held)) return;
+
+        flushLock.lock();
+        try {
+            // 반영 중이었다면 끝났다. 반영에 실패해 다시 HELD 가 되었을 수도 있다.
+            held = heldReservations.get(reservationId);
+            if (held != null && releaseHeld(held)) return;
+
+            StockReservation reservation = newTransaction.execute(status -> {
+                StockReservation found = stockReservationRepository.findById(reservationId);
+                if (found == null) throw new IllegalArgumentException("존재하지 않는 예약입니다. reservationId=" + reservationId);
+                found.release();
+                // 상품이 삭제되었다면 되돌릴 재고가 없다.
+                itemRepository.addStockQuantity(found.getItemId(), found.getQuantity());
+                return found;
+            });
+            evictSecondLevelCache(reservation.getItemId());
+            // retired 라면 다시 불러올 때 데이터베이스 값에 이미 들어있다.
+            StockCounter counter = counters.get(reservation.getItemId());
+            if (counter != null) counter.reconcile(reservation.getQuantity());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 엔티티 수정으로 이미 커밋된 재고 변경을 메모리 재고에 맞춘다. (InventoryReconciler)
+     * 카운터가 그 변경이 커밋된 뒤에 불러온 것이라면(불러온 버전 >= 변경 후 버전) 이미 반영되어 있으므로 건너뛴다.
+     *
+     * @param version 변경 후 상품 버전, 모르면 null (다음 반영 때 무효화한다.)
+     */
+    public void reconcile(Long itemId, int delta, Long version) {
+        StockCounter counter = counters.get(itemId);
+        if (counter == null) return;
+        if (version == null) {
+            staleItemIds.add(itemId);
+            return;
+        }
+        if (counter.getLoadedVersion() >= version) return;
+        // retired 라면 다시 불러올 때 데이터베이스 값에 이미 들어있다.
+        counter.reconcile(delta);
+    }
+
+    /**
+     * 데이터베이스 재고만 보고 차감하기 전에, 이 상품에 쌓인 변경량을 지금 반영한다.
+     */
+    public void drain(Long itemId) {
+        StockCounter counter = counters.get(itemId);
+        if (counter != null && counter.getPending() != 0) flush();
+    }
+
+    /**
+     * 카운터를 버린다. 다음 예약 때 데이터베이스에서 다시 불러오고, 남은 변경량은 새 카운터로 넘긴다.
+     */
+    public void invalidate(Long itemId) {
+        StockCounter counter = counters.get(itemId);
+        if (counter != null) counter.retire();
+    }
+
+    /**
+     * 상품이 삭제되면 카운터를 버린다. 기록하지 않은 예약은 반영할 때 REJECTED 가 된다.
+     */
+    public void remove(Long itemId) {
+        flushLock.lock();
+        try {
+            StockCounter counter = counters.remove(itemId);
+            if (counter != null) counter.retire();
+            staleItemIds.remove(itemId);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 쌓인 변경량과 예약 기록을 한 트랜잭션으로 반영한다. 실패하면 되돌려 다음 반영 때 다시 시도한다.
+     */
+    @Scheduled(fixedDelayString = "${jpashop.inventory.flush-interval-ms:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            for (Long itemId : staleItemIds) {
+                staleItemIds.remove(itemId);
+                invalidate(itemId);
+            }
+
+            // 예약 기록을 먼저 가져온 뒤 변경량을 비운다. 가져온 예약의 차감은 이번 변경량이나 그 전 반영에 반드시 들어 있다.
+            List<HeldReservation> claimed = claimJournal();
+            Map<Long, Integer> deltas = drainPending();
+            if (claimed.isEmpty() && deltas.isEmpty()) return;
+
+            FlushResult result;
+            try {
+                result = newTransaction.execute(status -> apply(deltas, claimed));
+            } catch (RuntimeException e) {
+                deltas.forEach(this::restorePending);
+                claimed.forEach(HeldReservation::unclaim);
+                journal.addAll(claimed);
+                log.error("예약 반영 실패, 다음 반영 때 다시 시도합니다.", e);
+                return;
+            }
+            claimed.forEach(reservation -> heldReservations.remove(reservation.getId()));
+            result.unapplied.forEach(this::restorePending);
+            deltas.keySet().forEach(this::evictSecondLevelCache);
+            // 반영하지 못한 만큼 메모리 재고가 많게 잡혀 있다.
+            result.rejectedItemIds.forEach(this::invalidate);
+            // 버린 카운터의 변경량을 모두 반영했으면 더 넘길 것이 없다.
+            counters.values().removeIf(counter -> counter.isRetired() && counter.getPending() == 0);
+            flushCount.increment();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    public Stats getStats() {
+        long pendingDelta = counters.values().stream().mapToLong(StockCounter::getPending).sum();
+        return new Stats(counters.size(), pendingDelta, heldReservations.size(),
+                reserveCount.sum(), rejectCount.sum(), flushCount.sum(),
+                toMicros(reserveLatency.getPercentile(50)),
+                toMicros(reserveLatency.getPercentile(90)),
+                toMicros(reserveLatency.getPercentile(99)),
+                toMicros(reserveLatency.getPercentile(99.9)),
+                toMicros(reserveLatency.getMax()));
+    }
+
+    /**
+     * @return 메모리에 있는 예약 가능 재고, 불러오지 않은 상품이면 null
+     */
+    public Integer getAvailable(Long itemId) {
+        StockCounter counter = counters.get(itemId);
+        return counter == null || counter.isRetired() ? null : counter.getAvailable();
+    }
+
+    /**
+     * 메모리 재고를 되돌린다. 카운터가 무효화되었다면 다시 불러와서 되돌린다.
+     * @return 이미 취소했거나 반영 중이라 취소하지 못했으면 false
+     */
+    private boolean releaseHeld(HeldReservation held) {
+        if (!held.release()) {
+            if (held.isJournaling()) return false;
+            throw new IllegalStateException("이미 취소된 예약입니다.");
+        }
+        while (true) {
+            StockCounter counter = counters.get(held.getItemId());
+            if (counter != null && counter.add(held.getQuantity())) return true;
+            try {
+                load(held.getItemId());
+            } catch (IllegalArgumentException e) {
+                // 상품이 삭제되었다면 되돌릴 재고가 없다.
+                return true;
+            }
+        }
+    }
+
+    private List<HeldReservation> claimJournal() {
+        List<HeldReservation> claimed = new ArrayList<>();
+        HeldReservation reservation;
+        while ((reservation = journal.poll()) != null) {
+            reservation.claim();
+            claimed.add(reservation);
+        }
+        return claimed;
+    }
+
+    // 상품 아이디 순서로 update 해서, 다른 트랜잭션과 행 락을 서로 반대 순서로 잡지 않도록 한다.
+    private Map<Long, Integer> drainPending() {
+        Map<Long, Integer> deltas = new TreeMap<>();
+        counters.forEach((itemId, counter) -> {
+            int pending = counter.drainPending();
+            if (pending != 0) deltas.put(itemId, pending);
+        });
+        return deltas;
+    }
+
+    // flushLock 안에서만 호출한다. 그동안 카운터는 바뀌지 않는다. (삭제된 상품이면 버린다.)
+    private void restorePending(Long itemId, int pending) {
+        StockCounter counter = counters.get(itemId);
+        if (counter != null) counter.restorePending(pending);
+    }
+
+    /**
+     * 합친 변경량을 반영하지 못하면(예약을 받은 뒤 다른 경로로 재고가 줄었다) 이번에 기록하는 예약 중 나중에 받은 것부터 빼고 반영한다.
+     */
+    private FlushResult apply(Map<Long, Integer> deltas, List<HeldReservation> claimed) {
+        FlushResult result = new FlushResult();
+        Set<HeldReservation> rejected = new HashSet<>();
+        Map<Long, List<HeldReservation>> heldByItem = claimed.stream()
+                .filter(reservation -> !reservation.isReleased())
+                .collect(Collectors.groupingBy(HeldReservation::getItemId));
+
+        deltas.forEach((itemId, delta) -> {
+            if (itemRepository.addStockQuantity(itemId, delta)) return;
+
+            List<HeldReservation> reservations = heldByItem.getOrDefault(itemId, Collections.emptyList());
+            result.rejectedItemIds.add(itemId);
+            ItemStockDto itemStock = itemRepository.findItemStock(itemId);
+            if (itemStock == null) {
+                rejected.addAll(reservations);
+                return;
+            }
+            int remaining = delta;
+            for (int i = reservations.size() - 1; i >= 0 && itemStock.getStockQuantity() + remaining < 0; i--) {
+                HeldReservation reservation = reservations.get(i);
+                rejected.add(reservation);
+                remaining += reservation.getQuantity();
+                log.error("재고가 부족해 예약을 반영하지 못했습니다. reservationId={}, itemId={}, quantity={}",
+                        reservation.getId(), itemId, reservation.getQuantity());
+            }
+            if (itemStock.getStockQuantity() + remaining < 0 || !itemRepository.addStockQuantity(itemId, remaining)) {
+                log.error("재고 변경을 반영하지 못해 다음 반영 때 다시 시도합니다. itemId={}, delta={}", itemId, remaining);
+                result.unapplied.put(itemId, remaining);
+            }
+        });
+
+        for (HeldReservation reservation : claimed) {
+            StockReservationStatus status = reservation.isReleased() ? StockReservationStatus.RELEASED
+                    : rejected.contains(reservation) ? StockReservationStatus.REJECTED
+                    : StockReservationStatus.APPLIED;
+            stockReservationRepository.save(StockReservation.createReservation(
+                    reservation.getId(), reservation.getItemId(), reservation.getQuantity(), status));
+        }
+        return result;
+    }
+
+    /**
+     * 반영과 같은 락을 잡고 읽으므로, 비운 변경량은 데이터베이스에 이미 커밋되었거나 카운터에 되돌려져 있다.
+     * 무효화한 카운터에 남은 변경량은 아직 데이터베이스에 없으므로 새 카운터로 넘긴다.
+     */
+    private StockCounter load(Long itemId) {
+        flushLock.lock();
+        try {
+            StockCounter existing = counters.get(itemId);
+            if (existing != null && !existing.isRetired()) return existing;
+
+            ItemStockDto itemStock = newTransaction.execute(status -> {
+                if (!reservationIdsInitialized) {
+                    long startId = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+                    reservationIds.set(Math.max(startId, stockReservationRepository.findMaxId()));
+                    reservationIdsInitialized = true;
+                }
+                return itemRepository.findItemStock(itemId);
+            });
+            if (itemStock == null) throw new IllegalArgumentException("존재하지 않는 상품입니다. itemId=" + itemId);
+            long version = itemStock.getVersion() == null ? 0 : itemStock.getVersion();
+            int pending = existing == null ? 0 : existing.getPending();
+            StockCounter counter = new StockCounter(itemStock.getStockQuantity() + pending, pending, version);
+            counters.put(itemId, counter);
+            return counter;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void evictSecondLevelCache(Long itemId) {
+        entityManagerFactory.getCache().evict(Item.class, itemId);
+    }
+
+    private static double toMicros(long nanos) {
+        return nanos / (double) TimeUnit.MICROSECONDS.toNanos(1);
+    }
+
+    private static class FlushResult {
+        private final Map<Long, Integer> unapplied = new TreeMap<>();
+        private final Set<Long> rejectedItemIds = new HashSet<>();
+    }
+
+    @Data
+    public static class Stats {
+        private final int itemCount; // 메모리에 올라와 있는 상품 수
+        private final long pendingDelta; // 아직 상품 재고에 반영하지 않은 변경량 합계 (예약은 음수)
+        private final int unjournaledCount; // 아직 기록하지 않은 예약 수
+        private final long reserveCount;
+        private final long rejectCount; // 재고 부족으로 거절한 수
+        private final long flushCount;
+        private final double p50Micros;
+        private final double p90Micros;
+        private final double p99Micros;
+        private final double p999Micros;
+        private final double maxMicros;
+    }
+}
@@ -0,0 +1,130 @@
+package jpabook.jpashop.inventory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 상품 하나의 메모리 재고
+ *
+ * available(지금 예약할 수 있는 재고)과 pending(아직 데이터베이스에 반영하지 않은 변경량)을 long 하나에 상위/하위 32비트로 담아,
+ * 두 값을 CAS 한번으로 함께 바꾼다. 락 없이도 "재고 확인 + 차감 + 변경량 기록"이 한번에 일어난다.
+ *
+ * 무효화한 카운터는 retired 상태가 되어 더 이상 예약을 받지 않는다. 남은 pending 은 그대로 두어,
+ * 반영(drainPending)하거나 다시 불러온 카운터로 넘긴다.
+ */
+class StockCounter {
+
+    private static final int RETIRED = Integer.MIN_VALUE;
+
+    private final AtomicLong state;
+
+    // 데이터베이스에서 불러올 때의 상품 버전, 이 버전까지의 변경은 이미 available 에 들어있다.
+    private final long loadedVersion;
+
+    StockCounter(int available, int pending, long loadedVersion) {
+        this.state = new AtomicLong(pack(available, pending));
+        this.loadedVersion = loadedVersion;
+    }
+
+    enum Result {
+        RESERVED, INSUFFICIENT, RETIRED
+    }
+
+    Result reserve(int quantity) {
+        while (true) {
+            long current = state.get();
+            int available = available(current);
+            if (available == RETIRED) return Result.RETIRED;
+            if (available < quantity) return Result.INSUFFICIENT;
+            if (state.compareAndSet(current, pack(available - quantity, pending(current) - quantity))) {
+                return Result.RESERVED;
+            }
+        }
+    }
+
+    /**
+     * @param delta 예약 취소는 양수, pending 에도 함께 더한다.
+     * @return retired 라서 더하지 않았으면 false
+     */
+    boolean add(int delta) {
+        while (true) {
+            long current = state.get();
+            int available = available(current);
+            if (available == RETIRED) return false;
+            if (state.compareAndSet(current, pack(available + delta, pending(current) + delta))) return true;
+        }
+    }
+
+    /**
+     * 다른 경로(엔티티 수정, 반영한 예약의 취소)로 데이터베이스에 이미 커밋된 변경을 available 에만 더한다.
+     */
+    boolean reconcile(int delta) {
+        while (true) {
+            long current = state.get();
+            int available = available(current);
+            if (available == RETIRED) return false;
+            if (state.compareAndSet(current, pack(available + delta, pending(current)))) return true;
+        }
+    }
+
+    /**
+     * retired 카운터에서도 비울 수 있다.
+     * @return 지금까지 쌓인 변경량, 카운터에서는 0으로 비운다.
+     */
+    int drainPending() {
+        while (true) {
+            long current = state.get();
+            int pending = pending(current);
+            if (pending == 0) return 0;
+            if (state.compareAndSet(current, pack(available(current), 0))) return pending;
+        }
+    }
+
+    /**
+     * 데이터베이스 반영에 실패한 변경량을 되돌려 다음 반영 때 다시 시도한다.
+     */
+    void restorePending(int pending) {
+        while (true) {
+            long current = state.get();
+            if (state.compareAndSet(current, pack(available(current), pending(current) + pending))) return;
+        }
+    }
+
+    /**
+     * 더 이상 예약을 받지 않도록 한다. pending 은 그대로 남는다.
+     */
+    void retire() {
+        while (true) {
+            long current = state.get();
+            if (available(current) == RETIRED) return;
+            if (state.compareAndSet(current, pack(RETIRED, pending(current)))) return;
+        }
+    }
+
+    boolean isRetired() {
+        return available(state.get()) == RETIRED;
+    }
+
+    int getAvailable() {
+        return available(state.get());
+    }
+
+    int getPending() {
+        return pending(state.get());
+    }
+
+    long getLoadedVersion() {
+        return loadedVersion;
+    }
+
+    private static long pack(int available, int pending) {
+        return ((long) available << 32) | (pending & 0xFFFFFFFFL);
+    }
+
+    private static int available(long state) {
+        return (int) (state >> 32);
+    }
+
+    private static int pending(long state) {
+        return (int) state;
+    }
+}
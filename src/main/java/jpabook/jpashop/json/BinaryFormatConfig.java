@@ -0,0 +1,32 @@
+package jpabook.jpashop.json;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * 바이너리 응답 형식 (Accept 헤더로 고른다.)
+ * - application/cbor: CBOR
+ * - application/x-jackson-smile: Smile
+ *
+ * 스프링 MVC 도 클래스패스에 있으면 두 형식의 컨버터를 기본으로 만들지만, 스프링 부트 설정(spring.jackson.*)과 Module 빈이 빠진 ObjectMapper 를 사용한다.
+ * 그래서 JSON 과 같은 Jackson2ObjectMapperBuilder 로 만든 컨버터를 빈으로 등록해 기본 컨버터를 대신한다.
+ * JSON 과 같은 DTO, 같은 직렬화기(Hibernate5Module, OrderJsonModule, 날짜 형식)를 사용하고 인코딩만 다르다.
+ */
+@Configuration
+public class BinaryFormatConfig {
+
+    @Bean
+    MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
@@ -0,0 +1,19 @@
+package jpabook.jpashop.json;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 주문 DTO 직렬화기 등록 (jpashop.json.order-serializers.enabled=false 로 끄면 기본 ObjectMapper 직렬화를 사용한다.)
+ * 스프링 부트가 Module 빈을 ObjectMapper 에 등록한다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "jpashop.json.order-serializers", name = "enabled", matchIfMissing = true)
+public class OrderJsonConfig {
+
+    @Bean
+    OrderJsonModule orderJsonModule() {
+        return new OrderJsonModule();
+    }
+}
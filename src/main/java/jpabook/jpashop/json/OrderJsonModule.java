@@ -0,0 +1,138 @@
+package jpabook.jpashop.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.query.OrderSimpleQueryDto;
+import jpabook.jpashop.service.dto.OrderDto;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 주문 목록 DTO(OrderDto, OrderSimpleQueryDto)를 직접 쓰는 직렬화기
+ *
+ * 기본 ObjectMapper 는 빈 프로퍼티(getter)를 리플렉션으로 찾아 필드마다 직렬화기를 고르고, Hibernate5Module 이 값마다 프록시인지 확인한다.
+ * 이 직렬화기는 필드 순서대로 값을 바로 쓴다.
+ * - 필드 이름과 주문 상태 이름은 미리 인코딩해 둔 SerializedString 을 그대로 복사한다.
+ * - LocalDateTime 은 JavaTimeModule 의 기본 형식(ISO_LOCAL_DATE_TIME)과 같게 쓴다.
+ * - 두 DTO 의 address 도 여기서 바로 쓴다. Address 직렬화기를 전역으로 등록하면 Address 를 담은 다른 엔티티, DTO 의 응답까지 바뀌므로 등록하지 않는다.
+ * 날짜를 timestamp 로 쓰거나 enum 을 toString/index 로 쓰도록 설정을 바꾸면 그 값만 기본 직렬화기에 맡긴다.
+ * 결과가 기본 ObjectMapper 와 같은지는 OrderJsonModuleTest 로 확인한다. (DTO 필드를 바꾸면 여기도 함께 바꿔야 한다.)
+ */
+public class OrderJsonModule extends SimpleModule {
+
+    private static final SerializedString ORDER_ID = new SerializedString("orderId");
+    private static final SerializedString NAME = new SerializedString("name");
+    private static final SerializedString ORDER_DATE = new SerializedString("orderDate");
+    private static final SerializedString ORDER_STATUS = new SerializedString("orderStatus");
+    private static final SerializedString ADDRESS = new SerializedString("address");
+    private static final SerializedString CITY = new SerializedString("city");
+    private static final SerializedString STREET = new SerializedString("street");
+    private static final SerializedString ZIPCODE = new SerializedString("zipcode");
+
+    private static final SerializedString[] ORDER_STATUS_NAMES = new SerializedString[OrderStatus.values().length];
+
+    static {
+        for (OrderStatus status : OrderStatus.values()) {
+            ORDER_STATUS_NAMES[status.ordinal()] = new SerializedString(status.name());
+        }
+    }
+
+    public OrderJsonModule() {
+        super("OrderJsonModule");
+        addSerializer(OrderDto.class, new OrderDtoSerializer());
+        addSerializer(OrderSimpleQueryDto.class, new OrderSimpleQueryDtoSerializer());
+    }
+
+    static class OrderDtoSerializer extends StdSerializer<OrderDto> {
+
+        OrderDtoSerializer() {
+            super(OrderDto.class);
+        }
+
+        @Override
+        public void serialize(OrderDto value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject(value);
+            writeOrderFields(generator, provider, value.getOrderId(), value.getName(), value.getOrderDate(),
+                    value.getOrderStatus(), value.getAddress());
+            generator.writeEndObject();
+        }
+    }
+
+    static class OrderSimpleQueryDtoSerializer extends StdSerializer<OrderSimpleQueryDto> {
+
+        OrderSimpleQueryDtoSerializer() {
+            super(OrderSimpleQueryDto.class);
+        }
+
+        @Override
+        public void serialize(OrderSimpleQueryDto value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject(value);
+            writeOrderFields(generator, provider, value.getOrderId(), value.getName(), value.getOrderDate(),
+                    value.getOrderStatus(), value.getAddress());
+            generator.writeEndObject();
+        }
+    }
+
+    private static void writeOrderFields(JsonGenerator generator, SerializerProvider provider, Long orderId, String name,
+                                         LocalDateTime orderDate, OrderStatus orderStatus, Address address) throws IOException {
+        generator.writeFieldName(ORDER_ID);
+        if (orderId == null) generator.writeNull();
+        else generator.writeNumber(orderId);
+
+        generator.writeFieldName(NAME);
+        generator.writeString(name); // null 이면 null 을 쓴다.
+
+        generator.writeFieldName(ORDER_DATE);
+        writeLocalDateTime(generator, provider, orderDate);
+
+        generator.writeFieldName(ORDER_STATUS);
+        writeOrderStatus(generator, provider, orderStatus);
+
+        generator.writeFieldName(ADDRESS);
+        writeAddress(generator, address);
+    }
+
+    private static void writeAddress(JsonGenerator generator, Address address) throws IOException {
+        if (address == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartObject(address);
+        generator.writeFieldName(CITY);
+        generator.writeString(address.getCity());
+        generator.writeFieldName(STREET);
+        generator.writeString(address.getStreet());
+        generator.writeFieldName(ZIPCODE);
+        generator.writeString(address.getZipcode());
+        generator.writeEndObject();
+    }
+
+    private static void writeLocalDateTime(JsonGenerator generator, SerializerProvider provider, LocalDateTime value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)) {
+            provider.defaultSerializeValue(value, generator);
+        } else {
+            generator.writeString(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(value));
+        }
+    }
+
+    private static void writeOrderStatus(JsonGenerator generator, SerializerProvider provider, OrderStatus value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (provider.isEnabled(SerializationFeature.WRITE_ENUMS_USING_TO_STRING)
+                || provider.isEnabled(SerializationFeature.WRITE_ENUMS_USING_INDEX)) {
+            provider.defaultSerializeValue(value, generator);
+        } else {
+            generator.writeString(ORDER_STATUS_NAMES[value.ordinal()]);
+        }
+    }
+}
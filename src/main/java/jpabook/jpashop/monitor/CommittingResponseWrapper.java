@@ -0,0 +1,64 @@
+package jpabook.jpashop.monitor;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * 응답이 커밋되기 직전(본문 쓰기, flush, 에러, 리다이렉트)에 헤더를 한번 추가하는 응답 래퍼
+ * 본문을 쓰기 시작하면 헤더를 더 이상 바꿀 수 없으므로, 요청 범위에서 측정한 값을 헤더로 돌려주는 필터들이 사용한다.
+ */
+class CommittingResponseWrapper extends HttpServletResponseWrapper {
+
+    private final Runnable headerWriter;
+    private boolean headersWritten;
+
+    CommittingResponseWrapper(HttpServletResponse response, Runnable headerWriter) {
+        super(response);
+        this.headerWriter = headerWriter;
+    }
+
+    void writeHeaders() {
+        if (headersWritten || isCommitted()) return;
+        headersWritten = true;
+        headerWriter.run();
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        writeHeaders();
+        return super.getOutputStream();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        writeHeaders();
+        return super.getWriter();
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        writeHeaders();
+        super.flushBuffer();
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+        writeHeaders();
+        super.sendError(sc);
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        writeHeaders();
+        super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        writeHeaders();
+        super.sendRedirect(location);
+    }
+}
@@ -0,0 +1,55 @@
+package jpabook.jpashop.monitor;
+
+import lombok.Getter;
+
+/**
+ * 하나의 요청이 커넥션 풀에서 커넥션을 빌려 쥐고 있던 시간
+ *
+ * 커넥션을 얻은 시점부터 반납(close)한 시점까지를 더한다. 아직 반납하지 않은 커넥션은 조회 시점까지의 시간을 더한다.
+ * OSIV 가 켜져 있으면 영속성 컨텍스트가 뷰 렌더링(JSON 직렬화)이 끝날 때까지 커넥션을 쥐고 있으므로 이 값이 커진다.
+ * 현재 스레드의 범위는 ConnectionHoldTimeFilter 가 열고 닫는다. 범위가 없을 때 얻은 커넥션은 기록하지 않는다.
+ */
+public class ConnectionHoldTime {
+
+    private static final ThreadLocal<ConnectionHoldTime> CURRENT = new ThreadLocal<>();
+
+    @Getter
+    private int acquiredCount;
+    private long releasedNanos;
+    private int openCount;
+    private long openStartedNanosSum; // 아직 반납하지 않은 커넥션들의 획득 시각 합
+
+    public static ConnectionHoldTime start() {
+        ConnectionHoldTime holdTime = new ConnectionHoldTime();
+        CURRENT.set(holdTime);
+        return holdTime;
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    static ConnectionHoldTime current() {
+        return CURRENT.get();
+    }
+
+    void acquired(long nanos) {
+        acquiredCount++;
+        openCount++;
+        openStartedNanosSum += nanos;
+    }
+
+    void released(long acquiredNanos, long nanos) {
+        openCount--;
+        openStartedNanosSum -= acquiredNanos;
+        releasedNanos += nanos - acquiredNanos;
+    }
+
+    public long getHeldNanos() {
+        return releasedNanos + (openCount * System.nanoTime() - openStartedNanosSum);
+    }
+
+    public boolean hasOpenConnection() {
+        return openCount > 0;
+    }
+}
@@ -0,0 +1,51 @@
+package jpabook.jpashop.monitor;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 커넥션을 얻고 반납하는 시각을 현재 요청의 ConnectionHoldTime 에 기록하는 DataSource
+ * 요청 범위가 없으면 커넥션을 감싸지 않고 그대로 돌려준다.
+ */
+public class ConnectionHoldTimeDataSource extends DelegatingDataSource {
+
+    public ConnectionHoldTimeDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return track(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return track(super.getConnection(username, password));
+    }
+
+    private Connection track(Connection connection) {
+        ConnectionHoldTime holdTime = ConnectionHoldTime.current();
+        if (holdTime == null) return connection;
+
+        long acquiredNanos = System.nanoTime();
+        holdTime.acquired(acquiredNanos);
+        boolean[] closed = {false};
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close") && !closed[0]) {
+                        closed[0] = true;
+                        holdTime.released(acquiredNanos, System.nanoTime());
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
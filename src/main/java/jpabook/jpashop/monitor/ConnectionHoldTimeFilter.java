@@ -0,0 +1,43 @@
+package jpabook.jpashop.monitor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP 요청마다 커넥션을 쥐고 있던 시간(마이크로초)을 응답 헤더로 돌려준다.
+ *
+ * 헤더는 본문을 쓰기 시작하는 순간의 값이다. 그때까지 반납하지 않은 커넥션(open-in-view)은 그 순간까지의 시간을 더한다.
+ * 본문을 쓰는 동안까지 포함한 전체 시간은 요청이 끝날 때 debug 로그로 남긴다.
+ */
+@Slf4j
+public class ConnectionHoldTimeFilter extends OncePerRequestFilter {
+
+    public static final String CONNECTION_HOLD_TIME_HEADER = "X-Connection-Hold-Time";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ConnectionHoldTime holdTime = ConnectionHoldTime.start();
+        CommittingResponseWrapper responseWrapper = new CommittingResponseWrapper(response, () ->
+                response.setHeader(CONNECTION_HOLD_TIME_HEADER, String.valueOf(toMicros(holdTime.getHeldNanos()))));
+        try {
+            filterChain.doFilter(request, responseWrapper);
+            responseWrapper.writeHeaders();
+        } finally {
+            ConnectionHoldTime.end();
+            log.debug("[{} {}] connections={}, hold={}us", request.getMethod(), request.getRequestURI(),
+                    holdTime.getAcquiredCount(), toMicros(holdTime.getHeldNanos()));
+        }
+    }
+
+    private static long toMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
@@ -0,0 +1,46 @@
+package jpabook.jpashop.monitor;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+/**
+ * 커넥션 점유 모니터링 설정 (jpashop.connection-monitor.enabled=false 로 끌 수 있다.)
+ *
+ * - ConnectionHoldTimeDataSource: DataSource 를 감싸 커넥션을 얻고 반납한 시각을 기록한다.
+ * - ConnectionHoldTimeFilter: HTTP 요청 범위, 응답 헤더 X-Connection-Hold-Time
+ * - LazyLoadGuard: 트랜잭션 밖의 지연 로딩
+ */
+@Configuration
+@EnableConfigurationProperties(ConnectionMonitorProperties.class)
+@ConditionalOnProperty(prefix = "jpashop.connection-monitor", name = "enabled", matchIfMissing = true)
+public class ConnectionMonitorConfig {
+
+    @Bean
+    static BeanPostProcessor connectionHoldTimeDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof ConnectionHoldTimeDataSource)) {
+                    return new ConnectionHoldTimeDataSource((DataSource) bean);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    ConnectionHoldTimeFilter connectionHoldTimeFilter() {
+        return new ConnectionHoldTimeFilter();
+    }
+
+    @Bean
+    LazyLoadGuard lazyLoadGuard(EntityManagerFactory entityManagerFactory, ConnectionMonitorProperties properties) {
+        return new LazyLoadGuard(entityManagerFactory, properties);
+    }
+}
@@ -0,0 +1,20 @@
+package jpabook.jpashop.monitor;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "jpashop.connection-monitor")
+public class ConnectionMonitorProperties {
+
+    private boolean enabled = true;
+
+    private Action lazyLoadAction = Action.LOG;
+
+    public enum Action {
+        LOG,  // 경고 로그를 남기고 지연 로딩은 그대로 진행한다.
+        FAIL  // 지연 로딩을 막고 예외를 던진다.
+    }
+}
@@ -0,0 +1,72 @@
+package jpabook.jpashop.monitor;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.HibernateException;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.LoadEvent;
+import org.hibernate.event.spi.LoadEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 서비스 트랜잭션이 끝난 뒤의 지연 로딩(프록시, 컬렉션 초기화)을 센다.
+ *
+ * open-in-view 가 꺼져 있으면 트랜잭션이 끝날 때 영속성 컨텍스트도 닫혀서, 그 뒤의 지연 로딩은 LazyInitializationException 이 된다.
+ * 영속성 컨텍스트가 트랜잭션보다 오래 열려 있는 경우(open-in-view 를 다시 켜거나 EntityManager 를 직접 바인딩한 경우)에는
+ * 지연 로딩이 트랜잭션 없이 성공하면서 직렬화하는 동안 커넥션을 다시 잡으므로 이 리스너로 잡는다.
+ * 트랜잭션 밖의 지연 로딩은 설정(jpashop.connection-monitor.lazy-load-action)에 따라 경고 로그를 남기거나 예외를 던진다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class LazyLoadGuard implements LoadEventListener, InitializeCollectionEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ConnectionMonitorProperties properties;
+
+    private final AtomicLong violationCount = new AtomicLong();
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.prependListeners(EventType.LOAD, this);
+        registry.prependListeners(EventType.INIT_COLLECTION, this);
+    }
+
+    @Override
+    public void onLoad(LoadEvent event, LoadType loadType) throws HibernateException {
+        // 프록시 초기화만 본다. (em.find 같은 직접 조회는 IMMEDIATE_LOAD 가 아니다.)
+        if (loadType == LoadEventListener.IMMEDIATE_LOAD) {
+            check(event.getEntityClassName() + "#" + event.getEntityId());
+        }
+    }
+
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) throws HibernateException {
+        check(event.getCollection().getRole());
+    }
+
+    private void check(String target) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) return;
+
+        violationCount.incrementAndGet();
+        String message = "트랜잭션 밖에서 지연 로딩했습니다. " + target;
+        if (properties.getLazyLoadAction() == ConnectionMonitorProperties.Action.FAIL) {
+            throw new LazyLoadOutsideTransactionException(message);
+        }
+        log.warn(message);
+    }
+
+    public long getViolationCount() {
+        return violationCount.get();
+    }
+}
@@ -0,0 +1,12 @@
+package jpabook.jpashop.monitor;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
+public class LazyLoadOutsideTransactionException extends RuntimeException {
+
+    public LazyLoadOutsideTransactionException(String message) {
+        super(message);
+    }
+}
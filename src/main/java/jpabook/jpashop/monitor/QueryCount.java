@@ -0,0 +1,57 @@
+package jpabook.jpashop.monitor;
+
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 하나의 범위(HTTP 요청, 서비스 메서드)에서 실행된 SQL 수
+ * SQL 모양별 실행 횟수도 함께 센다. 같은 모양의 select 가 여러번 나갔다면 N+1 을 의심할 수 있다.
+ */
+@Getter
+public class QueryCount {
+
+    private final String name;
+    private int count;
+    private int maxRepeat;
+    private String mostRepeatedShape;
+
+    // 벌크 작업처럼 SQL 수가 입력 크기에 비례하는 것이 정상인 범위 (@QueryCountExempt)
+    private boolean exempt;
+
+    // SQL 모양 -> 실행 횟수
+    private final Map<String, Integer> shapeCounts = new HashMap<>();
+
+    public QueryCount(String name) {
+        this.name = name;
+    }
+
+    void record(String shape) {
+        count++;
+        int repeat = shapeCounts.merge(shape, 1, Integer::sum);
+        if (SqlShape.isSelect(shape) && repeat > maxRepeat) {
+            maxRepeat = repeat;
+            mostRepeatedShape = shape;
+        }
+    }
+
+    void exempt() {
+        exempt = true;
+    }
+
+    /**
+     * @param keyword select, insert, update, delete 등 SQL 시작 키워드
+     */
+    public int getCount(String keyword) {
+        return shapeCounts.entrySet().stream()
+                .filter(entry -> entry.getKey().regionMatches(true, 0, keyword, 0, keyword.length()))
+                .mapToInt(Map.Entry::getValue)
+                .sum();
+    }
+
+    @Override
+    public String toString() {
+        return name + " - 쿼리 " + count + "회, 같은 모양 select 최대 " + maxRepeat + "회";
+    }
+}
@@ -0,0 +1,34 @@
+package jpabook.jpashop.monitor;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * 서비스 계층의 @Transactional 메서드마다 실행된 SQL 수를 센다.
+ * 트랜잭션 AOP 보다 바깥에서 감싸서, 커밋 시점의 플러시로 실행되는 insert/update 도 해당 메서드의 수에 포함한다.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class QueryCountAspect {
+
+    private final QueryCountPolicy policy;
+
+    @Around("execution(* jpabook.jpashop.service..*(..)) && " +
+            "(@within(org.springframework.transaction.annotation.Transactional) || @annotation(org.springframework.transaction.annotation.Transactional))")
+    public Object count(ProceedingJoinPoint joinPoint) throws Throwable {
+        boolean exempt = ((MethodSignature) joinPoint.getSignature()).getMethod().isAnnotationPresent(QueryCountExempt.class);
+        QueryCount queryCount = QueryCounter.start(joinPoint.getSignature().toShortString(), exempt);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            QueryCounter.end(queryCount);
+            policy.report(queryCount);
+        }
+    }
+}
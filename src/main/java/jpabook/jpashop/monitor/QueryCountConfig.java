@@ -0,0 +1,41 @@
+package jpabook.jpashop.monitor;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * SQL 수 모니터링 설정 (jpashop.query-count.enabled=false 로 끌 수 있다.)
+ *
+ * - QueryCountInspector: hibernate 가 실행하는 SQL 을 센다.
+ * - QueryCountFilter: HTTP 요청 범위, 응답 헤더 X-Query-Count
+ * - QueryCountAspect: 서비스 @Transactional 메서드 범위
+ */
+@Configuration
+@EnableConfigurationProperties(QueryCountProperties.class)
+@ConditionalOnProperty(prefix = "jpashop.query-count", name = "enabled", matchIfMissing = true)
+public class QueryCountConfig {
+
+    @Bean
+    QueryCountPolicy queryCountPolicy(QueryCountProperties properties) {
+        return new QueryCountPolicy(properties);
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer queryCountInspectorCustomizer(QueryCountPolicy policy) {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, new QueryCountInspector(policy));
+    }
+
+    @Bean
+    QueryCountFilter queryCountFilter(QueryCountPolicy policy) {
+        return new QueryCountFilter(policy);
+    }
+
+    @Bean
+    QueryCountAspect queryCountAspect(QueryCountPolicy policy) {
+        return new QueryCountAspect(policy);
+    }
+}
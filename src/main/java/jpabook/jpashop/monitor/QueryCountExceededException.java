@@ -0,0 +1,12 @@
+package jpabook.jpashop.monitor;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
+public class QueryCountExceededException extends RuntimeException {
+
+    public QueryCountExceededException(String message) {
+        super(message);
+    }
+}
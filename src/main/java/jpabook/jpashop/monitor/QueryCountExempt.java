@@ -0,0 +1,15 @@
+package jpabook.jpashop.monitor;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 벌크 작업처럼 SQL 수가 입력 크기에 비례하는 것이 정상인 서비스 메서드에 붙인다.
+ * SQL 은 그대로 세지만, 이 메서드를 포함한 범위(HTTP 요청 포함)는 기준 초과로 보지 않는다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryCountExempt {
+}
@@ -0,0 +1,43 @@
+package jpabook.jpashop.monitor;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * HTTP 요청마다 실행된 SQL 수를 세어 응답 헤더로 돌려준다.
+ *
+ * 헤더는 본문을 쓰기 시작하는 순간에 추가한다. 본문을 쓰기 시작하면 응답이 커밋되어 헤더를 더 이상 바꿀 수 없기 때문에,
+ * 본문을 쓰는 도중에 실행된 SQL(직렬화 중 지연 로딩, /orders/export 처럼 스트리밍하면서 조회)은 헤더 값에 포함되지 않는다.
+ * 그런 SQL 도 요청 범위에는 기록되므로 로그(QueryCountPolicy)에는 포함된다.
+ */
+@RequiredArgsConstructor
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    public static final String QUERY_COUNT_HEADER = "X-Query-Count";
+    public static final String QUERY_MAX_REPEAT_HEADER = "X-Query-Max-Repeat";
+
+    private final QueryCountPolicy policy;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryCount queryCount = QueryCounter.start(request.getMethod() + " " + request.getRequestURI());
+        CommittingResponseWrapper responseWrapper = new CommittingResponseWrapper(response, () -> {
+            response.setHeader(QUERY_COUNT_HEADER, String.valueOf(queryCount.getCount()));
+            response.setHeader(QUERY_MAX_REPEAT_HEADER, String.valueOf(queryCount.getMaxRepeat()));
+        });
+        try {
+            filterChain.doFilter(request, responseWrapper);
+            responseWrapper.writeHeaders();
+        } finally {
+            QueryCounter.end(queryCount);
+            policy.report(queryCount);
+        }
+    }
+}
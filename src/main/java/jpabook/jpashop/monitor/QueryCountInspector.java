@@ -0,0 +1,23 @@
+package jpabook.jpashop.monitor;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * hibernate 가 PreparedStatement 를 만들기 직전에 SQL 을 받아 현재 스레드의 범위에 기록한다.
+ *
+ * p6spy 는 실행 로그를 남기는 용도로 그대로 두고, 세는 일은 여기서 한다.
+ * StatementInspector 는 SQL 을 준비할 때 한번 호출되므로, JDBC 배치로 묶인 insert/update 는 배치마다 한번으로 센다.
+ */
+@RequiredArgsConstructor
+public class QueryCountInspector implements StatementInspector {
+
+    private final QueryCountPolicy policy;
+
+    @Override
+    public String inspect(String sql) {
+        QueryCount outermost = QueryCounter.record(sql);
+        if (outermost != null) policy.check(outermost);
+        return sql;
+    }
+}
@@ -0,0 +1,48 @@
+package jpabook.jpashop.monitor;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 범위별 SQL 수가 기준(QueryCountProperties)을 넘었는지 판단하고, 설정에 따라 로그를 남기거나 거부한다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class QueryCountPolicy {
+
+    private final QueryCountProperties properties;
+
+    public boolean isExceeded(QueryCount queryCount) {
+        if (queryCount.isExempt()) return false;
+        return queryCount.getCount() > properties.getMaxStatements()
+                || queryCount.getMaxRepeat() > properties.getMaxRepeats();
+    }
+
+    /**
+     * SQL 이 실행될 때마다 호출된다. REJECT 모드에서 기준을 넘으면 SQL 을 실행하지 않고 예외를 던진다.
+     */
+    public void check(QueryCount queryCount) {
+        if (properties.getAction() == QueryCountProperties.Action.REJECT && isExceeded(queryCount)) {
+            throw new QueryCountExceededException(describe(queryCount));
+        }
+    }
+
+    /**
+     * 범위가 끝날 때 호출된다.
+     */
+    public void report(QueryCount queryCount) {
+        if (isExceeded(queryCount)) {
+            log.warn("쿼리 수 기준 초과 {}", describe(queryCount));
+        } else if (log.isDebugEnabled()) {
+            log.debug("{}", queryCount);
+        }
+    }
+
+    private String describe(QueryCount queryCount) {
+        String description = queryCount + " (기준: 쿼리 " + properties.getMaxStatements() + "회, 같은 모양 select " + properties.getMaxRepeats() + "회)";
+        if (queryCount.getMaxRepeat() > properties.getMaxRepeats()) {
+            description += ", N+1 의심: " + queryCount.getMostRepeatedShape();
+        }
+        return description;
+    }
+}
@@ -0,0 +1,26 @@
+package jpabook.jpashop.monitor;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "jpashop.query-count")
+public class QueryCountProperties {
+
+    private boolean enabled = true;
+
+    // 한 범위에서 허용하는 최대 SQL 수
+    private int maxStatements = 30;
+
+    // 같은 모양의 select 를 허용하는 최대 횟수, 넘으면 N+1 로 본다.
+    private int maxRepeats = 10;
+
+    private Action action = Action.LOG;
+
+    public enum Action {
+        LOG,    // 범위가 끝날 때 경고 로그를 남긴다.
+        REJECT  // 기준을 넘는 SQL 이 실행되려는 순간 예외를 던진다.
+    }
+}
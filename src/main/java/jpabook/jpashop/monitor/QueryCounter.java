@@ -0,0 +1,56 @@
+package jpabook.jpashop.monitor;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * 현재 스레드에서 열려있는 QueryCount 범위들을 관리한다.
+ *
+ * HTTP 요청 안에서 서비스 메서드를 호출하면 범위가 중첩되므로 스택으로 관리하고,
+ * 실행된 SQL 은 열려있는 모든 범위에 기록한다. (요청 범위의 수 = 요청 중 실행된 모든 SQL 수)
+ * 열려있는 범위가 없을 때(InitDB, 테스트에서 리포지토리 직접 호출 등) 실행된 SQL 은 세지 않는다.
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<Deque<QueryCount>> SCOPES = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private QueryCounter() {
+    }
+
+    public static QueryCount start(String name) {
+        return start(name, false);
+    }
+
+    /**
+     * @param exempt 기준 초과 검사에서 제외할 범위인지, 제외하면 이 범위를 감싸는 범위들도 함께 제외한다.
+     */
+    public static QueryCount start(String name, boolean exempt) {
+        Deque<QueryCount> scopes = SCOPES.get();
+        QueryCount queryCount = new QueryCount(name);
+        scopes.push(queryCount);
+        if (exempt) scopes.forEach(QueryCount::exempt);
+        return queryCount;
+    }
+
+    public static void end(QueryCount queryCount) {
+        Deque<QueryCount> scopes = SCOPES.get();
+        scopes.remove(queryCount);
+        if (scopes.isEmpty()) SCOPES.remove();
+    }
+
+    /**
+     * @return 가장 바깥 범위, 열려있는 범위가 없으면 null
+     */
+    public static QueryCount record(String sql) {
+        Deque<QueryCount> scopes = SCOPES.get();
+        if (scopes.isEmpty()) {
+            SCOPES.remove();
+            return null;
+        }
+        String shape = SqlShape.of(sql);
+        for (QueryCount scope : scopes) {
+            scope.record(shape);
+        }
+        return scopes.getLast();
+    }
+}
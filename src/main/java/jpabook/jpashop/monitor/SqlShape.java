@@ -0,0 +1,32 @@
+package jpabook.jpashop.monitor;
+
+import java.util.regex.Pattern;
+
+/**
+ * 바인딩 값만 다른 SQL 을 같은 모양으로 묶기 위한 정규화
+ *
+ * - 문자열, 숫자 리터럴은 ? 로 바꾼다. (네이티브 쿼리, 리터럴이 박힌 JPQL)
+ * - in (?, ?, ?) 은 개수와 상관없이 in (?...) 로 바꾼다. (배치 페치는 개수만 다른 IN 절을 만든다.)
+ * - 줄바꿈, 연속된 공백은 공백 하나로 바꾼다.
+ */
+public final class SqlShape {
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private SqlShape() {
+    }
+
+    public static String of(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = WHITESPACE.matcher(shape).replaceAll(" ").trim();
+        return IN_LIST.matcher(shape).replaceAll("in (?...)");
+    }
+
+    public static boolean isSelect(String shape) {
+        return shape.regionMatches(true, 0, "select", 0, "select".length());
+    }
+}
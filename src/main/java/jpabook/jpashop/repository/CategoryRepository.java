@@ -0,0 +1,52 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.item.Category;
+import jpabook.jpashop.repository.query.CategoryNodeQueryDto;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+@Repository
+public class CategoryRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public void save(Category category) {
+        em.persist(category);
+    }
+
+    public Category findById(Long categoryId) {
+        return em.find(Category.class, categoryId);
+    }
+
+    /**
+     * 카테고리 전체를 쿼리 한번으로 조회한다. 엔티티가 아닌 DTO 로 조회하므로 children 지연 로딩이 일어나지 않는다.
+     */
+    public List<CategoryNodeQueryDto> findAllNodes() {
+        return em.createQuery(
+                        "select new jpabook.jpashop.repository.query.CategoryNodeQueryDto(c.id, c.name, p.id, c.path)" +
+                                " from Category c" +
+                                " left join c.parent p" +
+                                " order by c.id", CategoryNodeQueryDto.class)
+                .getResultList();
+    }
+
+    /**
+     * path 가 oldPrefix 로 시작하는 카테고리(옮긴 카테고리의 하위 카테고리 전체)의 path 앞부분을 newPrefix 로 바꾼다.
+     * 벌크 연산이라 영속성 컨텍스트에 올라와 있는 카테고리의 path 는 바뀌지 않고, 엔티티 이벤트도 발생하지 않는다.
+     *
+     * @return 바꾼 카테고리 수
+     */
+    public int replacePathPrefix(String oldPrefix, String newPrefix) {
+        return em.createQuery(
+                        "update Category c set c.path = concat(:newPrefix, substring(c.path, :start))" +
+                                " where c.path like :pattern")
+                .setParameter("newPrefix", newPrefix)
+                .setParameter("start", oldPrefix.length() + 1)
+                .setParameter("pattern", oldPrefix + "%")
+                .executeUpdate();
+    }
+}
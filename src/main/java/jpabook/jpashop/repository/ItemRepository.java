@@ -1,15 +1,25 @@
 package jpabook.jpashop.repository;
 
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.query.ItemStockDto;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Repository
 public class ItemRepository {
 
+    // 재고 update 의 쿼리 공간, 어떤 엔티티 테이블과도 이름이 같지 않아 2차 캐시 영역을 비우지 않는다. (decreaseStock)
+    private static final String STOCK_UPDATE_SPACE = "stock_update";
+
     @Autowired
     EntityManager em;
 
@@ -29,7 +39,15 @@ public class ItemRepository {
          * merge로 값을 업데이트를 해줄 수 있지만 사실 이건 좋은 방법이 아니다.
          * newItem에서 비어있는 값은 null 값으로 초기화하기 때문이다.
          * 그래서 DTO를 통해 필요한 값만 setXxx()로 초기화 하는 것이 맞다.
+         * -> ItemService.updateItem(ItemUpdateCommand) 가 그렇게 수정한다.
         */
+        /**
+         * Item 에는 @Version 이 있으므로, 버전이 null 인 준영속 상품은 merge 가 새로운 상품으로 보고 insert 한다. (버전 확인도 하지 않는다.)
+         * 조회 시점의 버전을 가지고 있지 않으면 병합하지 않는다.
+         */
+        if (newItem.getVersion() == null) {
+            throw new IllegalArgumentException("버전이 없는 상품은 병합할 수 없습니다. itemId=" + newItem.getId());
+        }
         em.merge(newItem);
         }
     }
@@ -43,4 +61,141 @@ public class ItemRepository {
                 .getResultList();
     }
 
+    /**
+     * 상품 전체를 forward-only 커서로 읽어 consumer 에 넘긴다. batchSize 건마다 영속성 컨텍스트를 비운다. (OrderRepository.scrollAllWithMemberDelivery)
+     * 트랜잭션 안에서 호출해야 하고, consumer 는 넘겨받은 상품을 보관하지 않아야 한다.
+     */
+    public void scrollAll(int batchSize, Consumer<Item> consumer) {
+        Session session = em.unwrap(Session.class);
+        try (ScrollableResults results = session.createQuery("select item from Item item order by item.id", Item.class)
+                .setFetchSize(batchSize)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            int count = 0;
+            while (results.next()) {
+                consumer.accept((Item) results.get(0));
+                if (++count % batchSize == 0) {
+                    session.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * 재고가 충분할 때만 차감한다. 조회 없이 update 한번으로 확인과 차감을 함께 하므로, 읽고-수정하고-쓰는 사이에 다른 트랜잭션이 끼어들 틈이 없다.
+     * 같은 상품을 동시에 차감하면 행 락은 update 하는 동안만 잡힌다.
+     *
+     * 네이티브 쿼리에 쿼리 공간을 지정하지 않으면 Hibernate 는 어떤 테이블이 바뀌었는지 몰라 모든 2차 캐시 영역을 비우고,
+     * Item 엔티티로 지정해도 주문마다 상품 캐시 영역 전체(카탈로그 캐시)가 비워진다.
+     * 그래서 어떤 캐시 영역과도 맞지 않는 쿼리 공간(STOCK_UPDATE_SPACE)을 지정해 아무 영역도 비우지 않고,
+     * 바뀐 상품 하나만 호출하는 쪽에서 지금과 커밋 후에 제거한다. (StockService) 커밋 전에 다른 트랜잭션이 옛날 재고를 다시 캐시에 넣을 수 있기 때문이다.
+     * 쿼리 캐시는 사용하지 않으므로 쿼리 캐시도 비울 것이 없다.
+     * 영속성 컨텍스트에 이미 올라와 있는 상품의 stockQuantity 는 갱신되지 않는다.
+     *
+     * 메모리 재고 예약(InventoryReservation)에 쌓인 변경량은 호출하는 쪽에서 먼저 반영한다. (StockService)
+     *
+     * @return 차감했으면 true, 재고가 부족하거나 상품이 없으면 false
+     */
+    public boolean decreaseStock(Long itemId, int quantity) {
+        int updated = em.createNativeQuery(
+                        "update item set stock_quantity = stock_quantity - :quantity, version = version + 1" +
+                                " where item_id = :itemId and stock_quantity >= :quantity")
+                .setParameter("quantity", quantity)
+                .setParameter("itemId", itemId)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(STOCK_UPDATE_SPACE)
+                .executeUpdate();
+        return updated == 1;
+    }
+
+    /**
+     * 재고를 delta 만큼 더한다. (차감은 음수) 더한 결과가 음수가 되면 바꾸지 않는다.
+     * InventoryReservation 이 쌓인 변경량을 상품 재고에 반영하거나, 반영한 예약을 취소할 때 사용한다.
+     * 캐시 영역은 decreaseStock()과 같이 비우지 않고, 2차 캐시의 해당 상품은 호출하는 쪽에서 커밋 후 제거한다.
+     *
+     * @return 바꿨으면 true, 재고가 부족하거나 상품이 없으면 false
+     */
+    public boolean addStockQuantity(Long itemId, int delta) {
+        int updated = em.createNativeQuery(
+                        "update item set stock_quantity = stock_quantity + :delta, version = version + 1" +
+                                " where item_id = :itemId and stock_quantity + :delta >= 0")
+                .setParameter("delta", delta)
+                .setParameter("itemId", itemId)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(STOCK_UPDATE_SPACE)
+                .executeUpdate();
+        return updated == 1;
+    }
+
+    /**
+     * 1차, 2차 캐시를 거치지 않고 데이터베이스의 현재 재고와 버전을 조회한다.
+     * @return 상품이 없으면 null
+     */
+    public ItemStockDto findItemStock(Long itemId) {
+        return em.createQuery("select new jpabook.jpashop.repository.query.ItemStockDto(item.id, item.stockQuantity, item.version)" +
+                        " from Item item where item.id = :itemId", ItemStockDto.class)
+                .setParameter("itemId", itemId)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    public List<Item> findAllById(Collection<Long> itemIds) {
+        return em.createQuery("select item from Item item where item.id in :itemIds", Item.class)
+                .setParameter("itemIds", itemIds)
+                .getResultList();
+    }
+
+    /**
+     * 카테고리와 그 하위 카테고리 전체에 속한 상품을 쿼리 한번으로 조회한다.
+     * 하위 카테고리는 path 접두사 조건(idx_category_path)으로 찾으므로, 트리 깊이나 카테고리 수와 관계없이 쿼리는 하나다.
+     * 여러 카테고리에 속한 상품도 한번만 나온다. (서브쿼리로 조회해 distinct 가 필요 없다.)
+     *
+     * @param descendantPath Category.getDescendantPath()
+     */
+    public List<Item> findAllInCategorySubtree(Long categoryId, String descendantPath, int offset, int limit) {
+        return em.createQuery("select item from Item item" +
+                        " where item.id in (" +
+                        "   select categoryItem.id from Category c join c.items categoryItem" +
+                        "   where c.id = :categoryId or c.path like :descendantPattern)" +
+                        " order by item.id", Item.class)
+                .setParameter("categoryId", categoryId)
+                .setParameter("descendantPattern", descendantPath + "%")
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * 상품 가격을 percent 만큼 올린다. (내릴 때는 음수, 원 단위 미만은 버린다.) JPQL 벌크 update 한번으로 처리한다.
+     * 가격 * (100 + percent)는 int 범위를 넘을 수 있으므로 long 으로 계산한다. 결과가 int 범위 안인지는 호출하는 쪽에서 확인한다. (ItemService)
+     *
+     * 벌크 연산은 영속성 컨텍스트를 거치지 않고 데이터베이스에 바로 실행된다.
+     * - 실행 전: 아직 보내지 않은 변경이 벌크 연산에 덮이거나, 벌크 연산 결과를 덮지 않도록 먼저 flush 한다.
+     * - 실행 후: 영속성 컨텍스트에 남아있는 상품은 옛날 가격을 가지고 있으므로 비운다. 이후 조회는 데이터베이스에서 다시 읽는다.
+     * 2차 캐시의 Item 영역은 Hibernate 가 벌크 연산 후 비운다. 엔티티 이벤트는 발생하지 않는다.
+     *
+     * @return 수정한 상품 수
+     */
+    public int adjustPrices(Collection<Long> itemIds, int percent) {
+        em.flush();
+        int updated = em.createQuery("update Item item" +
+                        " set item.price = cast(item.price as long) * (100 + :percent) / 100, item.version = item.version + 1" +
+                        " where item.id in :itemIds")
+                .setParameter("percent", percent)
+                .setParameter("itemIds", itemIds)
+                .executeUpdate();
+        em.clear();
+        return updated;
+    }
+
+    /**
+     * @return 상품 중 가장 높은 가격, 상품이 없으면 0
+     */
+    public int findMaxPrice(Collection<Long> itemIds) {
+        return em.createQuery("select coalesce(max(item.price), 0) from Item item where item.id in :itemIds", Integer.class)
+                .setParameter("itemIds", itemIds)
+                .getSingleResult();
+    }
+
 }
@@ -1,11 +1,16 @@
 package jpabook.jpashop.repository;
 
 import jpabook.jpashop.domain.Member;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Repository
 public class MemberRepository {
@@ -18,6 +23,14 @@ public class MemberRepository {
         return member.getId();
     }
 
+    /**
+     * 쓰기 지연된 insert 를 바로 실행한다. 유니크 제약 위반은 이 메서드를 호출한 시점에
+     * DataIntegrityViolationException 으로 변환되어 던져진다. (@Repository 예외 변환)
+     */
+    public void flush() {
+        em.flush();
+    }
+
     public Member find(long memberId) {
         return em.find(Member.class, memberId);
     }
@@ -27,6 +40,12 @@ public class MemberRepository {
                 .getResultList();
     }
 
+    public List<Member> findAllById(Collection<Long> memberIds) {
+        return em.createQuery("select m from Member m where m.id in :memberIds", Member.class)
+                .setParameter("memberIds", memberIds)
+                .getResultList();
+    }
+
     public List<Member> findByName(String name) {
         return em.createQuery("select m from Member m where m.name=:name", Member.class)
                 .setParameter("name", name)
@@ -44,4 +63,19 @@ public class MemberRepository {
                 .setParameter("name", name)
                 .getSingleResult() != 0;
     }
+
+    /**
+     * 모든 회원 이름을 forward-only 커서로 읽어 consumer 에 넘긴다. 엔티티를 만들지 않으므로 영속성 컨텍스트에 쌓이지 않는다.
+     * 트랜잭션 안에서 호출해야 한다.
+     */
+    public void scrollAllNames(int fetchSize, Consumer<String> consumer) {
+        try (ScrollableResults results = em.unwrap(Session.class)
+                .createQuery("select m.name from Member m", String.class)
+                .setFetchSize(fetchSize)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                consumer.accept((String) results.get(0));
+            }
+        }
+    }
 }
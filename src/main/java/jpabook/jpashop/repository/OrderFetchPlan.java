@@ -0,0 +1,101 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Order;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 주문과 함께 조회할 연관관계 (요청의 expand 파라미터, 예: expand=member,delivery,orderItems.item)
+ *
+ * 허용된 경로만 받고, Order 에 선언된 엔티티 그래프 이름으로 바꾼다.
+ * - xToOne(member, delivery): 주문 조회 쿼리에 함께 페치 조인한다.
+ * - 컬렉션(orderItems, orderItems.item): 조회한 주문들의 컬렉션을 쿼리 한번으로 따로 조회한다.
+ * orderItems.item 은 orderItems 를 포함한다.
+ */
+public final class OrderFetchPlan {
+
+    public static final String MEMBER = "member";
+    public static final String DELIVERY = "delivery";
+    public static final String ORDER_ITEMS = "orderItems";
+    public static final String ORDER_ITEMS_ITEM = "orderItems.item";
+
+    private static final List<String> PATHS = List.of(MEMBER, DELIVERY, ORDER_ITEMS, ORDER_ITEMS_ITEM);
+
+    public static final OrderFetchPlan NONE = new OrderFetchPlan(Collections.emptySet());
+
+    private final Set<String> paths;
+
+    private OrderFetchPlan(Set<String> paths) {
+        this.paths = Collections.unmodifiableSet(paths);
+    }
+
+    /**
+     * @param expand 쉼표로 구분한 경로, 비어있으면 연관관계를 조회하지 않는다.
+     * @throws IllegalArgumentException 허용되지 않은 경로가 있을 때
+     */
+    public static OrderFetchPlan parse(String expand) {
+        if (expand == null || expand.isBlank()) return NONE;
+
+        Set<String> paths = new TreeSet<>();
+        for (String path : expand.split(",")) {
+            String trimmed = path.trim();
+            if (trimmed.isEmpty()) continue;
+            if (!PATHS.contains(trimmed)) {
+                throw new IllegalArgumentException("지원하지 않는 expand 입니다. expand=" + trimmed + " (가능한 값: " + String.join(", ", PATHS) + ")");
+            }
+            paths.add(trimmed);
+        }
+        if (paths.contains(ORDER_ITEMS_ITEM)) paths.add(ORDER_ITEMS);
+        return paths.isEmpty() ? NONE : new OrderFetchPlan(paths);
+    }
+
+    public static OrderFetchPlan of(String... paths) {
+        return parse(String.join(",", paths));
+    }
+
+    /**
+     * @return 주문 조회 쿼리에 적용할 그래프 이름, 조회할 xToOne 연관관계가 없으면 null
+     */
+    String getToOneGraphName() {
+        boolean member = paths.contains(MEMBER);
+        boolean delivery = paths.contains(DELIVERY);
+        if (member && delivery) return Order.GRAPH_MEMBER_DELIVERY;
+        if (member) return Order.GRAPH_MEMBER;
+        if (delivery) return Order.GRAPH_DELIVERY;
+        return null;
+    }
+
+    /**
+     * @return 컬렉션 조회 쿼리에 적용할 그래프 이름, 조회할 컬렉션이 없으면 null
+     */
+    String getCollectionGraphName() {
+        if (paths.contains(ORDER_ITEMS_ITEM)) return Order.GRAPH_ORDER_ITEMS_ITEM;
+        if (paths.contains(ORDER_ITEMS)) return Order.GRAPH_ORDER_ITEMS;
+        return null;
+    }
+
+    public Set<String> getPaths() {
+        return paths;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof OrderFetchPlan)) return false;
+        return paths.equals(((OrderFetchPlan) o).paths);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(paths);
+    }
+
+    @Override
+    public String toString() {
+        return "OrderFetchPlan" + paths;
+    }
+}
@@ -2,11 +2,19 @@ package jpabook.jpashop.repository;
 
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.jpa.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.EntityGraph;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Repository
 public class OrderRepository {
@@ -18,8 +26,156 @@ public class OrderRepository {
         return entityManager.find(Order.class, orderId);
     }
 
+    /**
+     * 주문(cascade 로 주문 상품, 배송 포함)을 저장하고 바로 플러시한 뒤 영속성 컨텍스트를 비운다.
+     * hibernate.jdbc.batch_size, order_inserts 설정으로 insert 는 테이블별로 묶여 JDBC 배치로 실행된다.
+     * 대량 저장 시 나눠서 호출하면 영속성 컨텍스트에 엔티티가 쌓이지 않고, 플러시 때 변경 감지 대상도 한 묶음으로 제한된다.
+     */
+    public void saveAllAndClear(List<Order> orders) {
+        orders.forEach(entityManager::persist);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
     public List<Order> findAll() {
         return entityManager.createQuery("select m from Order m", Order.class)
                 .getResultList();
     }
+
+    /**
+     * 주문 단건을 member, delivery 와 함께 조회한다. 없으면 null
+     */
+    public Order findOneWithMemberDelivery(Long orderId) {
+        return entityManager.createQuery(
+                "select o from Order o" +
+                        " join fetch o.member m" +
+                        " join fetch o.delivery d" +
+                        " where o.id = :orderId", Order.class)
+                .setParameter("orderId", orderId)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * member, delivery 를 페치 조인으로 함께 조회한다.
+     * findAll() 로 조회한 뒤 member, delivery 에 접근하면 주문 수(N)만큼 지연 로딩 쿼리가 추가로 나가지만(1 + 2N),
+     * 페치 조인을 사용하면 주문 수와 관계없이 쿼리 한번으로 끝난다.
+     */
+    public List<Order> findAllWithMemberDelivery() {
+        return entityManager.createQuery(
+                "select o from Order o" +
+                        " join fetch o.member m" +
+                        " join fetch o.delivery d", Order.class)
+                .getResultList();
+    }
+
+    /**
+     * order_id 기준 키셋(seek) 페이징
+     * offset 페이징은 앞 페이지의 row 를 모두 읽고 버리기 때문에 뒤 페이지로 갈수록 느려진다.
+     * 키셋 페이징은 이전 페이지의 마지막 order_id 보다 큰 row 부터 pk 인덱스를 타고 읽으므로 몇번째 페이지든 비용이 같다.
+     *
+     * @param lastOrderId 이전 페이지의 마지막 주문 아이디, 첫 페이지면 null
+     * @param limit       조회할 최대 주문 수
+     */
+    public List<Order> findAllWithMemberDelivery(Long lastOrderId, int limit) {
+        TypedQuery<Order> query = entityManager.createQuery(
+                "select o from Order o" +
+                        " join fetch o.member m" +
+                        " join fetch o.delivery d" +
+                        (lastOrderId == null ? "" : " where o.id > :lastOrderId") +
+                        " order by o.id", Order.class);
+        if (lastOrderId != null) query.setParameter("lastOrderId", lastOrderId);
+        return query.setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * 주문 단건을 fetchPlan 의 연관관계와 함께 쿼리 한번으로 조회한다. 없으면 null
+     * 단건은 페이징하지 않으므로 컬렉션 그래프에 xToOne 연관관계를 더해 한번에 페치 조인한다.
+     */
+    public Order findOne(Long orderId, OrderFetchPlan fetchPlan) {
+        TypedQuery<Order> query = entityManager.createQuery("select o from Order o where o.id = :orderId", Order.class)
+                .setParameter("orderId", orderId);
+        EntityGraph<?> graph = createGraph(fetchPlan);
+        if (graph != null) query.setHint(QueryHints.HINT_FETCHGRAPH, graph);
+        // 컬렉션을 페치 조인하면 주문 상품 수만큼 같은 주문이 반복되므로 첫번째 것만 사용한다.
+        return query.getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * order_id 기준 키셋 페이징으로 주문을 fetchPlan 의 연관관계와 함께 조회한다.
+     * - xToOne 연관관계는 주문 조회 쿼리에 페치 조인한다. (row 수가 늘지 않으므로 페이징에 영향이 없다.)
+     * - 컬렉션은 조회한 주문의 아이디로 한번 더 조회해 채운다. 페이징 쿼리에 컬렉션을 페치 조인하면 limit 을 메모리에서 적용하기 때문이다.
+     * 따라서 요청한 연관관계와 페이지 크기에 관계없이 쿼리는 최대 두번이다.
+     *
+     * @param lastOrderId 이전 페이지의 마지막 주문 아이디, 첫 페이지면 null
+     * @param limit       조회할 최대 주문 수
+     */
+    public List<Order> findAll(Long lastOrderId, int limit, OrderFetchPlan fetchPlan) {
+        TypedQuery<Order> query = entityManager.createQuery(
+                "select o from Order o" +
+                        (lastOrderId == null ? "" : " where o.id > :lastOrderId") +
+                        " order by o.id", Order.class);
+        if (lastOrderId != null) query.setParameter("lastOrderId", lastOrderId);
+        String toOneGraphName = fetchPlan.getToOneGraphName();
+        if (toOneGraphName != null) query.setHint(QueryHints.HINT_FETCHGRAPH, entityManager.getEntityGraph(toOneGraphName));
+        List<Order> orders = query.setMaxResults(limit)
+                .getResultList();
+
+        String collectionGraphName = fetchPlan.getCollectionGraphName();
+        if (collectionGraphName != null && !orders.isEmpty()) {
+            // 이미 영속성 컨텍스트에 있는 주문들의 컬렉션이 이 조회 결과로 초기화된다.
+            entityManager.createQuery("select distinct o from Order o where o.id in :orderIds", Order.class)
+                    .setParameter("orderIds", orders.stream().map(Order::getId).collect(Collectors.toList()))
+                    .setHint(QueryHints.HINT_FETCHGRAPH, entityManager.getEntityGraph(collectionGraphName))
+                    .setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false)
+                    .getResultList();
+        }
+        return orders;
+    }
+
+    private EntityGraph<?> createGraph(OrderFetchPlan fetchPlan) {
+        String collectionGraphName = fetchPlan.getCollectionGraphName();
+        String toOneGraphName = fetchPlan.getToOneGraphName();
+        if (collectionGraphName == null) {
+            return toOneGraphName == null ? null : entityManager.getEntityGraph(toOneGraphName);
+        }
+        // 이름으로 만든 그래프는 수정할 수 있는 복사본이다.
+        EntityGraph<?> graph = entityManager.createEntityGraph(collectionGraphName);
+        if (fetchPlan.getPaths().contains(OrderFetchPlan.MEMBER)) graph.addAttributeNodes(OrderFetchPlan.MEMBER);
+        if (fetchPlan.getPaths().contains(OrderFetchPlan.DELIVERY)) graph.addAttributeNodes(OrderFetchPlan.DELIVERY);
+        return graph;
+    }
+
+    /**
+     * 주문 전체를 forward-only 커서로 한 건씩 읽어 consumer 에 넘긴다.
+     * getResultList()는 전체 결과를 List 로 만들고, 조회한 엔티티가 트랜잭션이 끝날 때까지 1차 캐시에 계속 쌓인다.
+     * 커서로 batchSize 건씩 가져오고, batchSize 건을 넘길 때마다 영속성 컨텍스트를 비워 주문 수와 관계없이 메모리 사용량을 일정하게 유지한다.
+     * 읽기 전용으로 조회해 변경 감지용 스냅샷도 만들지 않는다.
+     *
+     * 트랜잭션 안에서 호출해야 한다. (커서가 열려있는 동안 커넥션을 사용한다.)
+     * 비워진 영속성 컨텍스트의 엔티티는 준영속 상태가 되므로, consumer 는 넘겨받은 주문을 바로 사용하고 보관하지 않아야 한다.
+     */
+    public void scrollAllWithMemberDelivery(int batchSize, Consumer<Order> consumer) {
+        Session session = entityManager.unwrap(Session.class);
+        try (ScrollableResults results = session.createQuery(
+                "select o from Order o" +
+                        " join fetch o.member m" +
+                        " join fetch o.delivery d" +
+                        " order by o.id", Order.class)
+                .setFetchSize(batchSize)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            int count = 0;
+            while (results.next()) {
+                consumer.accept((Order) results.get(0));
+                if (++count % batchSize == 0) {
+                    session.clear();
+                }
+            }
+        }
+    }
 }
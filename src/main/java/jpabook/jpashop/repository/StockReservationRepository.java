@@ -0,0 +1,31 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.StockReservation;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+@Repository
+public class StockReservationRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public Long save(StockReservation reservation) {
+        em.persist(reservation);
+        return reservation.getId();
+    }
+
+    public StockReservation findById(Long reservationId) {
+        return em.find(StockReservation.class, reservationId);
+    }
+
+    /**
+     * @return 가장 큰 예약 아이디, 기록이 없으면 0
+     */
+    public long findMaxId() {
+        return em.createQuery("select coalesce(max(r.id), 0) from StockReservation r", Long.class)
+                .getSingleResult();
+    }
+}
@@ -0,0 +1,21 @@
+package jpabook.jpashop.repository.query;
+
+import lombok.Data;
+
+/**
+ * 카테고리 트리를 만들기 위한 카테고리 한 건 (자식 목록 없이 부모 아이디만 가진다.)
+ */
+@Data
+public class CategoryNodeQueryDto {
+    private Long categoryId;
+    private String name;
+    private Long parentId;
+    private String path;
+
+    public CategoryNodeQueryDto(Long categoryId, String name, Long parentId, String path) {
+        this.categoryId = categoryId;
+        this.name = name;
+        this.parentId = parentId;
+        this.path = path;
+    }
+}
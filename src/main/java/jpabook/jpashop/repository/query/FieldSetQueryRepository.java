@@ -0,0 +1,143 @@
+package jpabook.jpashop.repository.query;
+
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.From;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.SingularAttribute;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 요청한 필드만 select 절에 넣어 조회하는 리포지토리 (API 의 fields 파라미터, 예: fields=orderStatus,member.name,delivery.address.city)
+ *
+ * 필드는 엔티티 메타모델로 확인한다.
+ * - 기본 값 속성과 임베디드 타입(과 그 안의 속성)을 고를 수 있다.
+ * - 연관관계는 호출하는 쪽이 허용한 xToOne 만 따라간다. 이때만 left join 한다. (연관관계의 id 는 외래 키 컬럼이라 조인하지 않는다.)
+ * - 컬렉션, 허용하지 않은 연관관계, 없는 속성은 IllegalArgumentException
+ *
+ * 아이디는 항상 첫번째 필드로 조회한다. (다음 페이지 cursor 로 사용한다.)
+ * 조회 결과는 엔티티가 아닌 Tuple 이라 영속성 컨텍스트에 올라가지 않는다.
+ */
+@Repository
+public class FieldSetQueryRepository {
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    /**
+     * @param rootType     조회할 엔티티
+     * @param fields       쉼표로 구분한 필드
+     * @param associations 따라갈 수 있는 연관관계 이름
+     * @param lastId       이전 페이지의 마지막 아이디, 첫 페이지면 null
+     * @param limit        조회할 최대 행 수
+     */
+    public FieldSetRows findFields(Class<?> rootType, String fields, Set<String> associations, Long lastId, int limit) {
+        EntityType<?> entityType = entityManager.getMetamodel().entity(rootType);
+        String idName = idAttribute(entityType).getName();
+
+        Set<String> requested = new LinkedHashSet<>();
+        requested.add(idName);
+        for (String field : fields.split(",")) {
+            if (!field.isBlank()) requested.add(field.trim());
+        }
+
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<?> root = query.from(rootType);
+        Map<String, From<?, ?>> joins = new HashMap<>();
+
+        List<Selection<?>> selections = new ArrayList<>();
+        for (String field : requested) {
+            selections.add(toPath(root, entityType, field, associations, joins));
+        }
+        query.multiselect(selections);
+        if (lastId != null) query.where(builder.greaterThan(root.<Long>get(idName), lastId));
+        query.orderBy(builder.asc(root.get(idName)));
+
+        List<Tuple> tuples = entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+        return new FieldSetRows(List.copyOf(requested), tuples);
+    }
+
+    private Path<?> toPath(Root<?> root, EntityType<?> rootType, String field,
+                           Set<String> associations, Map<String, From<?, ?>> joins) {
+        String[] names = field.split("\\.");
+        From<?, ?> from = root;
+        Path<?> path = root;
+        ManagedType<?> type = rootType;
+        String associationPrefix = "";
+
+        for (int i = 0; i < names.length; i++) {
+            String name = names[i];
+            boolean last = i == names.length - 1;
+            SingularAttribute<?, ?> attribute = singularAttribute(type, name, field);
+
+            switch (attribute.getPersistentAttributeType()) {
+                case BASIC:
+                    if (!last) throw unsupported(field);
+                    return path.get(name);
+                case EMBEDDED:
+                    path = path.get(name);
+                    if (last) return path;
+                    type = (ManagedType<?>) attribute.getType();
+                    break;
+                case MANY_TO_ONE:
+                case ONE_TO_ONE:
+                    String association = associationPrefix + name;
+                    if (last || path != from || !associations.contains(association)) throw unsupported(field);
+                    EntityType<?> target = (EntityType<?>) attribute.getType();
+                    // 연관관계의 id 만 필요하면 외래 키 컬럼을 바로 읽는다.
+                    if (i + 2 == names.length && idAttribute(target).getName().equals(names[i + 1])) {
+                        return path.get(name).get(names[i + 1]);
+                    }
+                    From<?, ?> parent = from;
+                    from = joins.computeIfAbsent(association, key -> parent.join(name, JoinType.LEFT));
+                    path = from;
+                    type = target;
+                    associationPrefix = association + ".";
+                    break;
+                default:
+                    throw unsupported(field);
+            }
+        }
+        throw unsupported(field);
+    }
+
+    private SingularAttribute<?, ?> singularAttribute(ManagedType<?> type, String name, String field) {
+        for (Attribute<?, ?> attribute : type.getAttributes()) {
+            if (attribute.getName().equals(name)) {
+                if (attribute.isCollection()) throw unsupported(field);
+                return (SingularAttribute<?, ?>) attribute;
+            }
+        }
+        throw unsupported(field);
+    }
+
+    private SingularAttribute<?, ?> idAttribute(EntityType<?> entityType) {
+        return entityType.getSingularAttributes().stream()
+                .filter(SingularAttribute::isId)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("아이디 속성이 없습니다. " + entityType.getName()));
+    }
+
+    private IllegalArgumentException unsupported(String field) {
+        return new IllegalArgumentException("조회할 수 없는 필드입니다. fields=" + field);
+    }
+}
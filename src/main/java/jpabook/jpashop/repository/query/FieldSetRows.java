@@ -0,0 +1,52 @@
+package jpabook.jpashop.repository.query;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import javax.persistence.Tuple;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 필드를 골라 조회한 결과 (FieldSetQueryRepository)
+ * 행마다 Map 이나 DTO 를 만들지 않고, 조회한 Tuple 을 그대로 [{"필드": 값, ...}, ...] 형태의 JSON 으로 쓴다.
+ */
+public class FieldSetRows implements JsonSerializable {
+
+    private final List<String> fields;
+    private final List<Tuple> tuples;
+
+    FieldSetRows(List<String> fields, List<Tuple> tuples) {
+        this.fields = fields;
+        this.tuples = tuples;
+    }
+
+    public List<String> getFields() {
+        return fields;
+    }
+
+    public List<Tuple> getTuples() {
+        return tuples;
+    }
+
+    @Override
+    public void serialize(JsonGenerator generator, SerializerProvider serializers) throws IOException {
+        generator.writeStartArray();
+        for (Tuple tuple : tuples) {
+            generator.writeStartObject();
+            for (int i = 0; i < fields.size(); i++) {
+                generator.writeFieldName(fields.get(i));
+                serializers.defaultSerializeValue(tuple.get(i), generator);
+            }
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator generator, SerializerProvider serializers, TypeSerializer typeSerializer) throws IOException {
+        serialize(generator, serializers);
+    }
+}
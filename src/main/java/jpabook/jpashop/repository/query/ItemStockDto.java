@@ -0,0 +1,19 @@
+package jpabook.jpashop.repository.query;
+
+import lombok.Data;
+
+/**
+ * 상품의 현재 재고와 버전
+ */
+@Data
+public class ItemStockDto {
+    private Long itemId;
+    private int stockQuantity;
+    private Long version;
+
+    public ItemStockDto(Long itemId, int stockQuantity, Long version) {
+        this.itemId = itemId;
+        this.stockQuantity = stockQuantity;
+        this.version = version;
+    }
+}
@@ -0,0 +1,32 @@
+package jpabook.jpashop.repository.query;
+
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+/**
+ * 화면(API)에 맞춘 조회 전용 리포지토리
+ * 엔티티를 조회한 뒤 DTO로 변환하지 않고, 필요한 컬럼만 select 절에 지정해 DTO로 바로 조회한다.
+ *
+ * 엔티티 조회 후 변환하는 방식과 비교하면
+ * - select 절에 필요한 컬럼만 나간다.
+ * - 조회 결과가 영속성 컨텍스트에 올라가지 않으므로 1차 캐시, 변경 감지용 스냅샷이 생기지 않는다.
+ * 대신 재사용성이 떨어지고, 조회한 DTO로는 값을 변경할 수 없다.
+ */
+@Repository
+public class OrderSimpleQueryRepository {
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    public List<OrderSimpleQueryDto> findOrderDtos() {
+        return entityManager.createQuery(
+                "select new jpabook.jpashop.repository.query.OrderSimpleQueryDto(o.id, m.name, o.orderDateTime, o.orderStatus, d.address)" +
+                        " from Order o" +
+                        " join o.member m" +
+                        " join o.delivery d", OrderSimpleQueryDto.class)
+                .getResultList();
+    }
+}
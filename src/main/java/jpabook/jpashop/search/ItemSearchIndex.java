@@ -0,0 +1,332 @@
+package jpabook.jpashop.search;
+
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.ItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 상품 이름 검색 색인 (Book, Album, Movie 모두)
+ *
+ * - 이름을 글자, 숫자가 아닌 문자로 나누고 소문자로 바꾼 단어(term)로 색인한다. ("JPA 프로그래밍-2판" -> jpa, 프로그래밍, 2판)
+ * - 역색인: 단어 -> 그 단어가 들어간 상품 아이디(오름차순). search()는 모든 단어가 들어간 상품을 아이디 순서로 찾는다.
+ * - 자동완성: 단어의 앞 RANKED_PREFIX_LENGTH 글자까지의 접두사마다 그 접두사로 시작하는 단어를 상품이 많은 순서로 정렬해 둔다. (rankings)
+ *   상품을 넣고 뺄 때 상품 수가 바뀐 단어만 옮기므로, 짧은 접두사의 자동완성은 맞는 단어가 많아도 앞의 limit 개만 읽는다.
+ *   더 긴 접두사는 맞는 단어가 적으므로, 정렬된 맵(ConcurrentSkipListMap)에서 범위 조회로 찾는다.
+ *
+ * 검색은 데이터베이스를 거치지 않고 색인에 담아둔 상품 정보(ItemSearchResult)를 돌려준다.
+ * 시작할 때(ApplicationReadyEvent) 상품 전체로 채우고, 이후에는 커밋된 상품 추가, 수정, 삭제 이벤트로 갱신한다. (ItemSearchIndexer)
+ *
+ * [동시성]
+ * 색인 수정은 writeLock 으로 하나씩 한다. 검색은 락을 잡지 않으므로, 수정 중인 상품은 잠깐 이전 이름과 새 이름 어느 쪽으로도 찾아질 수 있다.
+ * 이벤트와 시작 시 채우기가 겹치면 버전(@Version)이 더 높은 쪽을 남기고, 채우는 중 삭제된 상품은 다시 넣지 않는다.
+ */
+@Slf4j
+@Component
+public class ItemSearchIndex {
+
+    // 순위를 미리 만들어 두는 접두사 길이, 단어마다 이 수만큼 순위에 들어가므로 길수록 메모리를 더 쓴다.
+    static final int RANKED_PREFIX_LENGTH = 4;
+
+    private final NavigableMap<String, Posting> postings = new ConcurrentSkipListMap<>();
+    // 접두사 -> 그 접두사로 시작하는 단어 (상품 수 내림차순, 같으면 사전 순서)
+    private final Map<String, NavigableSet<RankedTerm>> rankings = new ConcurrentHashMap<>();
+    private final Map<Long, IndexedItem> items = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    // 시작 시 채우는 동안 삭제된 상품 (채우기가 끝나면 비운다.)
+    private final Set<Long> deletedWhileLoading = ConcurrentHashMap.newKeySet();
+    private volatile boolean loading;
+
+    private ItemRepository itemRepository;
+    private TransactionTemplate readOnlyTransaction;
+
+    @Autowired
+    public ItemSearchIndex(ItemRepository itemRepository, PlatformTransactionManager transactionManager) {
+        this.itemRepository = itemRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // 커밋 후(afterCommit) 호출되는 reload()에서도 새 트랜잭션으로 조회해야 한다.
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 데이터베이스 없이 사용하는 색인 (테스트, 벤치마크용)
+     */
+    public ItemSearchIndex() {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.nanoTime();
+        loading = true;
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> itemRepository.scrollAll(1000, this::load));
+        } finally {
+            loading = false;
+            deletedWhileLoading.clear();
+        }
+        log.info("상품 검색 색인 준비 완료 items={}, terms={}, {}ms",
+                items.size(), postings.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void load(Item item) {
+        if (deletedWhileLoading.contains(item.getId())) return;
+        put(item);
+    }
+
+    /**
+     * 상품을 색인에 넣는다. 이미 있으면 이전 이름의 단어를 지우고 다시 넣는다. 색인에 있는 것보다 낮은 버전은 무시한다.
+     */
+    public void put(Item item) {
+        IndexedItem indexed = new IndexedItem(
+                new ItemSearchResult(item.getId(), item.getName(), item.getPrice(), Hibernate.getClass(item).getSimpleName()),
+                item.getVersion() == null ? 0 : item.getVersion(),
+                tokenize(item.getName()));
+        writeLock.lock();
+        try {
+            IndexedItem previous = items.get(item.getId());
+            if (previous != null) {
+                if (previous.version > indexed.version) return;
+                removePostings(previous);
+            }
+            items.put(item.getId(), indexed);
+            for (String term : indexed.terms) {
+                Posting posting = postings.computeIfAbsent(term, t -> new Posting());
+                int before = posting.size;
+                posting.add(item.getId());
+                rank(term, before, posting.size);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 이벤트 없이 바뀐 상품(JPQL 벌크 연산)을 데이터베이스에서 다시 읽어 색인한다. 커밋 후에 호출해야 한다.
+     */
+    public void reload(Collection<Long> itemIds) {
+        readOnlyTransaction.executeWithoutResult(status -> itemRepository.findAllById(itemIds).forEach(this::put));
+    }
+
+    public void remove(Long itemId) {
+        writeLock.lock();
+        try {
+            if (loading) deletedWhileLoading.add(itemId);
+            IndexedItem previous = items.remove(itemId);
+            if (previous != null) removePostings(previous);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 검색어의 모든 단어가 이름에 들어있는 상품을 아이디 순서로 찾는다.
+     * 상품이 가장 적은 단어의 목록을 순서대로 보면서 나머지 단어 목록에도 있는지 확인하고, limit 개를 찾으면 멈춘다.
+     */
+    public List<ItemSearchResult> search(String query, int limit) {
+        List<String> terms = new ArrayList<>(tokenize(query));
+        if (terms.isEmpty()) return List.of();
+
+        List<Posting> termPostings = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            Posting posting = postings.get(term);
+            if (posting == null) return List.of();
+            termPostings.add(posting);
+        }
+        termPostings.sort(Comparator.comparingInt(posting -> posting.size));
+
+        List<ItemSearchResult> results = new ArrayList<>(Math.min(limit, 64));
+        Iterator<Long> candidates = termPostings.get(0).itemIds.iterator();
+        while (candidates.hasNext() && results.size() < limit) {
+            Long itemId = candidates.next();
+            if (containsAll(termPostings, itemId)) {
+                IndexedItem indexed = items.get(itemId);
+                if (indexed != null) results.add(indexed.result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * prefix 로 시작하는 단어를 상품이 많은 순서로 돌려준다. 상품 수가 같으면 사전 순서로 돌려준다.
+     * RANKED_PREFIX_LENGTH 글자 이하의 접두사는 미리 정렬해 둔 목록의 앞 limit 개만 읽는다. (맞는 단어 수와 관계없이 O(limit))
+     */
+    public List<String> autocomplete(String prefix, int limit) {
+        List<String> prefixTerms = tokenize(prefix);
+        if (prefixTerms.isEmpty() || limit < 1) return List.of();
+        String term = prefixTerms.get(prefixTerms.size() - 1);
+        if (term.length() > RANKED_PREFIX_LENGTH) return scanAutocomplete(term, limit);
+
+        NavigableSet<RankedTerm> ranking = rankings.get(term);
+        if (ranking == null) return List.of();
+        // 읽는 도중 상품 수가 바뀐 단어는 이전 자리와 새 자리에서 두번 보일 수 있다.
+        Set<String> suggestions = new LinkedHashSet<>();
+        for (RankedTerm ranked : ranking) {
+            if (suggestions.size() == limit) break;
+            suggestions.add(ranked.term);
+        }
+        return new ArrayList<>(suggestions);
+    }
+
+    /**
+     * 긴 접두사 - 접두사로 시작하는 단어를 모두 보면서 크기 limit 의 힙에 상위 단어만 남긴다. (단어 수 n 에 대해 O(n log limit))
+     */
+    private List<String> scanAutocomplete(String term, int limit) {
+        // 상품 수가 적은 단어부터, 같으면 사전 순서로 뒤에 있는 단어부터 버리는 크기 limit 의 힙
+        PriorityQueue<Map.Entry<String, Integer>> top = new PriorityQueue<>(
+                Map.Entry.<String, Integer>comparingByValue()
+                        .thenComparing(Map.Entry.<String, Integer>comparingByKey().reversed()));
+        for (Map.Entry<String, Posting> entry : postings.tailMap(term, true).entrySet()) {
+            if (!entry.getKey().startsWith(term)) break;
+            int size = entry.getValue().size;
+            // 단어를 사전 순서로 보므로, 힙의 가장 약한 단어보다 상품이 많아야 들어갈 수 있다.
+            if (top.size() == limit && size <= top.peek().getValue()) continue;
+            top.offer(Map.entry(entry.getKey(), size));
+            if (top.size() > limit) top.poll();
+        }
+
+        List<String> suggestions = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            suggestions.add(0, top.poll().getKey());
+        }
+        return suggestions;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public int termCount() {
+        return postings.size();
+    }
+
+    /**
+     * 글자, 숫자가 아닌 문자로 나누고 소문자로 바꾼다. 중복 단어는 한번만 남긴다.
+     */
+    static List<String> tokenize(String text) {
+        if (text == null) return List.of();
+        Set<String> terms = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean letterOrDigit = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (letterOrDigit && start < 0) {
+                start = i;
+            } else if (!letterOrDigit && start >= 0) {
+                terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return new ArrayList<>(terms);
+    }
+
+    private static boolean containsAll(List<Posting> termPostings, Long itemId) {
+        for (int i = 1; i < termPostings.size(); i++) {
+            if (!termPostings.get(i).itemIds.contains(itemId)) return false;
+        }
+        return true;
+    }
+
+    private void removePostings(IndexedItem indexed) {
+        Long itemId = indexed.result.getItemId();
+        for (String term : indexed.terms) {
+            Posting posting = postings.get(term);
+            if (posting == null) continue;
+            int before = posting.size;
+            posting.remove(itemId);
+            rank(term, before, posting.size);
+            // 수정은 writeLock 안에서만 하므로 비어있는지 확인하고 지우는 사이에 다른 상품이 추가되지 않는다.
+            if (posting.size == 0) postings.remove(term);
+        }
+    }
+
+    /**
+     * 상품 수가 바뀐 단어를 접두사별 순위에서 옮긴다. writeLock 안에서만 호출한다.
+     */
+    private void rank(String term, int before, int after) {
+        if (before == after) return;
+        for (int length = 1; length <= Math.min(term.length(), RANKED_PREFIX_LENGTH); length++) {
+            String prefix = term.substring(0, length);
+            if (before > 0) {
+                NavigableSet<RankedTerm> ranking = rankings.get(prefix);
+                ranking.remove(new RankedTerm(term, before));
+                if (after == 0 && ranking.isEmpty()) rankings.remove(prefix);
+            }
+            if (after > 0) {
+                rankings.computeIfAbsent(prefix, p -> new ConcurrentSkipListSet<>()).add(new RankedTerm(term, after));
+            }
+        }
+    }
+
+    /**
+     * 단어 하나의 상품 아이디 목록
+     * ConcurrentSkipListSet.size()는 원소를 모두 세므로(O(n)) 크기를 따로 둔다. (writeLock 안에서만 바뀐다.)
+     */
+    private static class Posting {
+        final ConcurrentSkipListSet<Long> itemIds = new ConcurrentSkipListSet<>();
+        volatile int size;
+
+        void add(Long itemId) {
+            if (itemIds.add(itemId)) size++;
+        }
+
+        void remove(Long itemId) {
+            if (itemIds.remove(itemId)) size--;
+        }
+    }
+
+    /**
+     * 접두사별 순위의 원소 - 상품 수가 많은 순서, 같으면 사전 순서
+     */
+    private static class RankedTerm implements Comparable<RankedTerm> {
+        final String term;
+        final int count;
+
+        RankedTerm(String term, int count) {
+            this.term = term;
+            this.count = count;
+        }
+
+        @Override
+        public int compareTo(RankedTerm other) {
+            if (count != other.count) return Integer.compare(other.count, count);
+            return term.compareTo(other.term);
+        }
+    }
+
+    private static class IndexedItem {
+        final ItemSearchResult result;
+        final long version;
+        final List<String> terms;
+
+        IndexedItem(ItemSearchResult result, long version, List<String> terms) {
+            this.result = result;
+            this.version = version;
+            this.terms = terms;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package jpabook.jpashop.search;
+
+import lombok.Data;
+
+/**
+ * 검색 색인에 담긴 상품 정보, 검색 결과로 그대로 돌려준다. (데이터베이스를 조회하지 않는다.)
+ */
+@Data
+public class ItemSearchResult {
+    private final Long itemId;
+    private final String name;
+    private final int price;
+    private final String type; // Book, Album, Movie
+}
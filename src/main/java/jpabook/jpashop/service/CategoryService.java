@@ -0,0 +1,79 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.cache.CategoryTree;
+import jpabook.jpashop.cache.CategoryTreeCache;
+import jpabook.jpashop.domain.item.Category;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.CategoryRepository;
+import jpabook.jpashop.repository.ItemRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * 카테고리 트리 조회는 CategoryTreeCache 의 트리를 사용하고, 하위 카테고리 전체의 상품 목록은 path 접두사 조건 쿼리 한번으로 조회한다.
+ * 카테고리 엔티티의 children 을 따라가며 조회하지 않는다. (노드마다 지연 로딩 쿼리가 나간다.)
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class CategoryService {
+
+    private final CategoryRepository categoryRepository;
+    private final ItemRepository itemRepository;
+    private final CategoryTreeCache categoryTreeCache;
+
+    /**
+     * @param parentId 루트 카테고리면 null
+     */
+    @Transactional
+    public Long create(String name, Long parentId) {
+        Category parent = parentId == null ? null : findCategory(parentId);
+        Category category = Category.createCategory(name, parent);
+        categoryRepository.save(category);
+        return category.getId();
+    }
+
+    /**
+     * 카테고리를 다른 부모 밑으로 옮긴다. 하위 카테고리는 함께 옮겨지고, 이들의 path 는 벌크 update 한번으로 바꾼다.
+     *
+     * @param newParentId 루트로 옮기면 null
+     * @throws IllegalArgumentException 자기 자신이나 하위 카테고리 밑으로 옮길 때
+     */
+    @Transactional
+    public void move(Long categoryId, Long newParentId) {
+        Category category = findCategory(categoryId);
+        Category newParent = newParentId == null ? null : findCategory(newParentId);
+        String oldDescendantPath = category.getDescendantPath();
+        if (newParent != null && (newParent == category || newParent.getPath().startsWith(oldDescendantPath))) {
+            throw new IllegalArgumentException("카테고리를 자기 자신이나 하위 카테고리 밑으로 옮길 수 없습니다. categoryId=" + categoryId);
+        }
+
+        category.changeParent(newParent);
+        categoryRepository.replacePathPrefix(oldDescendantPath, category.getDescendantPath());
+    }
+
+    public CategoryTree getTree() {
+        return categoryTreeCache.get();
+    }
+
+    /**
+     * 카테고리와 하위 카테고리 전체의 상품을 아이디 순서로 조회한다.
+     * 하위 카테고리 경로는 트리에서 가져오므로 카테고리 조회 없이 상품 쿼리 한번만 나간다.
+     *
+     * @throws IllegalArgumentException 카테고리가 없을 때
+     */
+    public List<Item> findItems(Long categoryId, int offset, int limit) {
+        CategoryTree.Node node = categoryTreeCache.get().find(categoryId);
+        if (node == null) throw new IllegalArgumentException("존재하지 않는 카테고리입니다. categoryId=" + categoryId);
+        return itemRepository.findAllInCategorySubtree(categoryId, node.getDescendantPath(), offset, limit);
+    }
+
+    private Category findCategory(Long categoryId) {
+        Category category = categoryRepository.findById(categoryId);
+        if (category == null) throw new IllegalArgumentException("존재하지 않는 카테고리입니다. categoryId=" + categoryId);
+        return category;
+    }
+}
@@ -1,27 +1,120 @@
 package jpabook.jpashop.service;
 
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.item.Movie;
 import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.search.ItemSearchIndex;
+import jpabook.jpashop.service.dto.ItemUpdateCommand;
 import lombok.RequiredArgsConstructor;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class ItemService {
 
+    // 가격 일괄 조정으로 한번에 올릴 수 있는 최대 비율(%)
+    static final int MAX_PRICE_INCREASE_PERCENT = 1000;
+
     final ItemRepository itemRepository;
+    final ItemSearchIndex itemSearchIndex;
 
-    // 상품 생성 및 수정
+    /**
+     * 상품 생성 (수정은 updateItem)
+     * 아이디가 있는 상품을 넘기면 merge 로 덮어쓰지 않고 거부한다. 수정은 조회한 상품을 바꾸는 updateItem 으로만 한다.
+     *
+     * @throws IllegalArgumentException 이미 저장된(아이디가 있는) 상품일 때
+     */
     @Transactional
     public Long save(Item item) {
+        if (item.getId() != null) {
+            throw new IllegalArgumentException("이미 저장된 상품입니다. 수정은 updateItem 을 사용해야 합니다. itemId=" + item.getId());
+        }
         itemRepository.save(item);
         return item.getId();
     }
 
+    /**
+     * 상품 부분 수정
+     * merge 처럼 모든 필드를 덮어쓰지 않고, 조회한 상품에 요청에 담긴 필드만 바꾼다. 값이 같으면 바꾸지 않는다.
+     * 커밋할 때 변경 감지로 바뀐 컬럼만 update 한다. (@DynamicUpdate) 아무 것도 바뀌지 않았으면 update 하지 않는다.
+     *
+     * @throws IllegalArgumentException 상품이 없을 때
+     * @throws ObjectOptimisticLockingFailureException 요청의 버전이 현재 버전과 다를 때
+     */
+    @Transactional
+    public Item updateItem(Long itemId, ItemUpdateCommand command) {
+        Item item = itemRepository.findById(itemId);
+        if (item == null) throw new IllegalArgumentException("존재하지 않는 상품입니다. itemId=" + itemId);
+        if (command.getVersion() != null && !command.getVersion().equals(item.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Item.class, itemId);
+        }
+        if (command.getPrice() != null && command.getPrice() < 0) {
+            throw new IllegalArgumentException("가격은 0 이상이어야 합니다. price=" + command.getPrice());
+        }
+
+        change(item.getName(), command.getName(), item::setName);
+        change(item.getPrice(), command.getPrice(), item::setPrice);
+        if (item instanceof Book) {
+            Book book = (Book) item;
+            change(book.getAuthor(), command.getAuthor(), book::setAuthor);
+            change(book.getIsbn(), command.getIsbn(), book::setIsbn);
+        } else if (item instanceof Album) {
+            Album album = (Album) item;
+            change(album.getArtist(), command.getArtist(), album::setArtist);
+            change(album.getEtc(), command.getEtc(), album::setEtc);
+        } else if (item instanceof Movie) {
+            Movie movie = (Movie) item;
+            change(movie.getDirector(), command.getDirector(), movie::setDirector);
+            change(movie.getActor(), command.getActor(), movie::setActor);
+        }
+        return item;
+    }
+
+    /**
+     * 상품 가격 일괄 조정 - 상품을 조회하지 않고 벌크 update 한번으로 바꾼다.
+     * 이 트랜잭션의 영속성 컨텍스트는 비워진다. (ItemRepository.adjustPrices)
+     * 엔티티 이벤트가 없으므로 검색 색인은 커밋 후 다시 읽어 갱신한다.
+     *
+     * @param percent 올릴 비율(%), 내릴 때는 음수 (-100 초과, MAX_PRICE_INCREASE_PERCENT 이하)
+     * @return 수정한 상품 수
+     * @throws IllegalArgumentException 비율이 범위를 벗어나거나, 조정한 가격이 int 범위를 넘는 상품이 있을 때
+     */
+    @Transactional
+    public int adjustPrices(Collection<Long> itemIds, int percent) {
+        if (itemIds.isEmpty()) return 0;
+        if (percent <= -100) throw new IllegalArgumentException("가격을 100% 이상 내릴 수 없습니다. percent=" + percent);
+        if (percent > MAX_PRICE_INCREASE_PERCENT) {
+            throw new IllegalArgumentException("가격은 " + MAX_PRICE_INCREASE_PERCENT + "% 까지만 올릴 수 있습니다. percent=" + percent);
+        }
+        long maxPrice = itemRepository.findMaxPrice(itemIds);
+        if (maxPrice * (100 + percent) / 100 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("조정한 가격이 최대 가격(" + Integer.MAX_VALUE + ")을 넘습니다. maxPrice=" + maxPrice + ", percent=" + percent);
+        }
+
+        int updated = itemRepository.adjustPrices(itemIds, percent);
+        List<Long> adjustedItemIds = new ArrayList<>(itemIds);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                itemSearchIndex.reload(adjustedItemIds);
+            }
+        });
+        return updated;
+    }
+
     // 상품 조회
     public Item findById(Long id) {
         return itemRepository.findById(id);
@@ -33,5 +126,7 @@ public class ItemService {
         return itemRepository.findAll();
     }
 
-
+    private static <T> void change(T current, T requested, Consumer<T> setter) {
+        if (requested != null && !Objects.equals(current, requested)) setter.accept(requested);
+    }
 }
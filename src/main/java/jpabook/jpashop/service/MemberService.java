@@ -1,29 +1,51 @@
 package jpabook.jpashop.service;
 
+import jpabook.jpashop.cache.MemberNameFilter;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.repository.MemberRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Locale;
 
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class MemberService {
     private final MemberRepository memberRepository;
+    private final MemberNameFilter memberNameFilter;
 
+    /**
+     * 중복 이름 확인은 유니크 제약(uk_member_name)이 한다. insert 를 바로 실행(flush)해서 제약 위반을 이 메서드 안에서 IllegalStateException 으로 바꾼다.
+     * 미리 조회해 확인하는 것은 대부분의 중복을 insert 전에 걸러내기 위해서이고, 이름 필터가 확실히 없다고 하는 이름은 조회도 건너뛴다.
+     */
     @Transactional
     public void save(Member member) {
         validateDuplicateName(member.getName());
-        memberRepository.save(member);
+        try {
+            memberRepository.save(member);
+            memberRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateName(e)) throw new IllegalStateException("이미 존재하는 회원입니다.", e);
+            throw e;
+        }
+        memberNameFilter.put(member.getName());
     }
 
     private void validateDuplicateName(String name) {
+        if (!memberNameFilter.mightContain(name)) return;
         if(memberRepository.isExistByName(name)) {
             throw new IllegalStateException("이미 존재하는 회원입니다.");
         }
+        memberNameFilter.recordFalsePositive();
+    }
+
+    private boolean isDuplicateName(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains(Member.UK_NAME);
     }
 
     public Member findById(Long memberId) {
@@ -0,0 +1,175 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.cache.OrderDtoCache;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.monitor.QueryCountExempt;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.OrderFetchPlan;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.service.dto.BulkOrderResult;
+import jpabook.jpashop.service.dto.OrderCreateCommand;
+import jpabook.jpashop.service.dto.OrderDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class OrderService {
+
+    // 커서에서 한번에 가져오고, 영속성 컨텍스트를 비우는 단위
+    private static final int EXPORT_BATCH_SIZE = 500;
+
+    // 대량 주문 저장 시 플러시하고 영속성 컨텍스트를 비우는 주문 수 (hibernate.jdbc.batch_size 와 맞춘다.)
+    static final int BULK_FLUSH_SIZE = 100;
+
+    private final OrderRepository orderRepository;
+    private final MemberRepository memberRepository;
+    private final ItemRepository itemRepository;
+    private final OrderDtoCache orderDtoCache;
+
+    /**
+     * 주문 단건 DTO 조회
+     * 캐시에 있으면 바로 반환하고, 없을 때만 페치 조인으로 한번에 조회해 캐시에 담는다.
+     * 캐시 히트 시에는 트랜잭션을 시작할(커넥션을 잡을) 필요가 없으므로 SUPPORTS 로 선언한다.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public OrderDto findOrderDto(Long orderId) {
+        OrderDto cached = orderDtoCache.get(orderId);
+        if (cached != null) return cached;
+
+        long stamp = orderDtoCache.currentStamp();
+        Order order = orderRepository.findOneWithMemberDelivery(orderId);
+        if (order == null) throw new IllegalArgumentException("존재하지 않는 주문입니다. orderId=" + orderId);
+
+        OrderDto orderDto = new OrderDto(order);
+        orderDtoCache.put(orderDto, order.getMember().getId(), order.getDelivery().getId(), stamp);
+        return orderDto;
+    }
+
+    /**
+     * 주문 전체를 조회해 DTO 로 바꾼다. 회원, 배송은 DTO 를 만들면서 지연 로딩한다. (OrderSimpleController.findOrderAll)
+     * 트랜잭션이 끝나면 지연 로딩할 수 없으므로(open-in-view 끔) DTO 변환까지 이 안에서 한다.
+     */
+    public List<OrderDto> findOrderDtos() {
+        return orderRepository.findAll().stream()
+                .map(OrderDto::new)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 주문 단건을 fetchPlan 의 연관관계와 함께 조회한다. 없으면 null
+     */
+    public Order findOrder(Long orderId, OrderFetchPlan fetchPlan) {
+        return orderRepository.findOne(orderId, fetchPlan);
+    }
+
+    /**
+     * 주문 목록 키셋 페이징 조회 (lastOrderId 다음 주문부터 limit 개)
+     */
+    public List<Order> findOrders(Long lastOrderId, int limit, OrderFetchPlan fetchPlan) {
+        return orderRepository.findAll(lastOrderId, limit, fetchPlan);
+    }
+
+    // 주문 전체 내보내기 - 주문을 한 건씩 consumer 에 넘긴다.
+    public void exportAll(Consumer<Order> consumer) {
+        orderRepository.scrollAllWithMemberDelivery(EXPORT_BATCH_SIZE, consumer);
+    }
+
+    /**
+     * 주문 대량 저장
+     * BULK_FLUSH_SIZE 건씩 나눠서
+     * 1. 그 묶음의 회원, 상품을 IN 절로 한번에 조회하고
+     * 2. 주문을 만들어 저장한 뒤 플러시(JDBC 배치 insert)하고 영속성 컨텍스트를 비운다.
+     * 묶음마다 영속성 컨텍스트를 비우므로 주문 수와 관계없이 메모리 사용량과 플러시 비용이 일정하다.
+     *
+     * 주문 하나가 실패하면 전체가 롤백된다.
+     */
+    @Transactional
+    @QueryCountExempt
+    public BulkOrderResult createOrders(List<OrderCreateCommand> commands) {
+        commands.forEach(this::validate);
+
+        long start = System.nanoTime();
+        int insertCount = 0;
+        for (int from = 0; from < commands.size(); from += BULK_FLUSH_SIZE) {
+            List<OrderCreateCommand> chunk = commands.subList(from, Math.min(from + BULK_FLUSH_SIZE, commands.size()));
+            List<Order> orders = createOrderChunk(chunk);
+            for (Order order : orders) {
+                insertCount += 2 + order.getOrderItems().size();
+            }
+            orderRepository.saveAllAndClear(orders);
+        }
+        return new BulkOrderResult(commands.size(), insertCount, System.nanoTime() - start);
+    }
+
+    private List<Order> createOrderChunk(List<OrderCreateCommand> chunk) {
+        Map<Long, Member> members = memberRepository.findAllById(chunk.stream()
+                        .map(OrderCreateCommand::getMemberId)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Member::getId, Function.identity()));
+        Map<Long, Item> items = itemRepository.findAllById(chunk.stream()
+                        .flatMap(command -> command.getOrderLines().stream())
+                        .map(OrderCreateCommand.OrderLine::getItemId)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Order> orders = new ArrayList<>(chunk.size());
+        for (OrderCreateCommand command : chunk) {
+            Member member = members.get(command.getMemberId());
+            if (member == null) throw new IllegalArgumentException("존재하지 않는 회원입니다. memberId=" + command.getMemberId());
+
+            OrderItem[] orderItems = command.getOrderLines().stream()
+                    .map(line -> createOrderItem(items, line))
+                    .toArray(OrderItem[]::new);
+
+            Delivery delivery = new Delivery();
+            delivery.setAddress(member.getAddress());
+            delivery.setDeliveryStatus(DeliveryStatus.READY);
+
+            Order order = Order.createOrder(member, delivery, orderItems);
+            order.setOrderDateTime(now);
+            order.setOrderStatus(OrderStatus.ORDER);
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    // 데이터베이스 조회 없이 확인할 수 있는 값은 저장을 시작하기 전에 모두 확인한다.
+    private void validate(OrderCreateCommand command) {
+        if (command.getMemberId() == null) throw new IllegalArgumentException("회원 아이디가 없습니다.");
+        if (command.getOrderLines() == null || command.getOrderLines().isEmpty()) {
+            throw new IllegalArgumentException("주문 상품이 없습니다. memberId=" + command.getMemberId());
+        }
+        for (OrderCreateCommand.OrderLine line : command.getOrderLines()) {
+            if (line.getItemId() == null) throw new IllegalArgumentException("상품 아이디가 없습니다. memberId=" + command.getMemberId());
+            if (line.getCount() < 1) throw new IllegalArgumentException("주문 수량은 1개 이상이어야 합니다. itemId=" + line.getItemId());
+        }
+    }
+
+    private OrderItem createOrderItem(Map<Long, Item> items, OrderCreateCommand.OrderLine line) {
+        Item item = items.get(line.getItemId());
+        if (item == null) throw new IllegalArgumentException("존재하지 않는 상품입니다. itemId=" + line.getItemId());
+        return OrderItem.createOrderItem(item, item.getPrice(), line.getCount());
+    }
+}
@@ -0,0 +1,132 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.inventory.InventoryReservation;
+import jpabook.jpashop.repository.ItemRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * 상품 재고 차감
+ *
+ * Item.removeStock()을 영속 상태의 상품에 그대로 호출하면, 같은 상품을 동시에 주문할 때 두 트랜잭션이 같은 재고를 읽고
+ * 각자 뺀 값으로 덮어써 차감 하나가 사라진다. (갱신 손실) 이를 막는 두 가지 방식을 제공한다.
+ *
+ * - CONDITIONAL_UPDATE (기본): update 한번으로 재고 확인과 차감을 함께 한다. 재시도가 없고 행 락은 update 하는 동안만 잡힌다.
+ * - OPTIMISTIC: 상품을 조회해 Item.removeStock()으로 차감하고, @Version 충돌이 나면 새 트랜잭션으로 MAX_ATTEMPTS 번까지 다시 시도한다.
+ *   엔티티의 비즈니스 로직을 그대로 쓸 수 있지만, 경합이 심할수록 재시도가 늘어난다.
+ *
+ * 두 방식 모두 차감 전에 메모리 재고 예약(InventoryReservation)에 쌓인 변경량을 먼저 반영해, 받은 예약만큼은 재고를 남겨 두고 차감한다.
+ *
+ * 모드는 jpashop.stock.mode 로 설정한다.
+ */
+@Service
+public class StockService {
+
+    static final int MAX_ATTEMPTS = 10;
+
+    public enum Mode {
+        CONDITIONAL_UPDATE, OPTIMISTIC
+    }
+
+    private final ItemRepository itemRepository;
+    private final EntityManagerFactory entityManagerFactory;
+    private final InventoryReservation inventoryReservation;
+    private final Mode mode;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransactionTemplate;
+
+    public StockService(ItemRepository itemRepository,
+                        EntityManagerFactory entityManagerFactory,
+                        InventoryReservation inventoryReservation,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${jpashop.stock.mode:CONDITIONAL_UPDATE}") Mode mode) {
+        this.itemRepository = itemRepository;
+        this.entityManagerFactory = entityManagerFactory;
+        this.inventoryReservation = inventoryReservation;
+        this.mode = mode;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public void removeStock(Long itemId, int quantity) {
+        removeStock(itemId, quantity, mode);
+    }
+
+    /**
+     * @throws IllegalStateException 재고가 부족할 때, 낙관적 락 모드에서 재시도 횟수를 넘겼을 때
+     * @throws IllegalArgumentException 상품이 없을 때
+     */
+    public void removeStock(Long itemId, int quantity, Mode mode) {
+        if (quantity < 1) throw new IllegalArgumentException("차감 수량은 1개 이상이어야 합니다. quantity=" + quantity);
+        if (mode == Mode.OPTIMISTIC) {
+            removeStockOptimistic(itemId, quantity);
+        } else {
+            removeStockConditional(itemId, quantity);
+        }
+    }
+
+    /**
+     * 호출한 쪽의 트랜잭션이 있으면 그 트랜잭션에 참여한다. (주문 저장과 함께 롤백된다.)
+     * 먼저 메모리 재고에 쌓인 변경량을 반영해, 받은 예약이 데이터베이스 재고에 들어간 뒤 확인한다.
+     */
+    private void removeStockConditional(Long itemId, int quantity) {
+        inventoryReservation.drain(itemId);
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!itemRepository.decreaseStock(itemId, quantity)) {
+                if (itemRepository.findById(itemId) == null) {
+                    throw new IllegalArgumentException("존재하지 않는 상품입니다. itemId=" + itemId);
+                }
+                throw new IllegalStateException("재고가 부족합니다.");
+            }
+            evictAfterCommit(itemId);
+        });
+    }
+
+    /**
+     * 재시도마다 새 트랜잭션에서 다시 조회해야 바뀐 버전을 읽을 수 있으므로 REQUIRES_NEW 로 실행한다.
+     * (호출한 쪽의 트랜잭션과는 따로 커밋된다.) 메모리 재고는 removeStockConditional()과 같은 이유로 먼저 반영한다.
+     * 커밋 후에는 InventoryReconciler 가 메모리 재고에서도 차감한다.
+     */
+    private void removeStockOptimistic(Long itemId, int quantity) {
+        inventoryReservation.drain(itemId);
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                newTransactionTemplate.executeWithoutResult(status -> {
+                    Item item = itemRepository.findById(itemId);
+                    if (item == null) throw new IllegalArgumentException("존재하지 않는 상품입니다. itemId=" + itemId);
+                    item.removeStock(quantity);
+                });
+                return;
+            } catch (OptimisticLockingFailureException e) {
+                // 다른 트랜잭션이 먼저 차감했다. 다시 조회해서 시도한다.
+            }
+        }
+        throw new IllegalStateException("재고 차감이 계속 충돌해 " + MAX_ATTEMPTS + "번 시도 후 실패했습니다. itemId=" + itemId);
+    }
+
+    /**
+     * 네이티브 update 는 2차 캐시를 갱신하지 않고, 캐시 영역도 비우지 않는다. (ItemRepository.decreaseStock) 그래서 차감한 상품만 지금 제거하고,
+     * 커밋 전에 다른 트랜잭션이 커밋 전 값(차감 전 재고)을 다시 캐시에 넣을 수 있어 커밋 후에 한번 더 제거한다.
+     * 엔티티 이벤트도 발생하지 않으므로 메모리 재고(InventoryReservation)도 커밋 후에 무효화한다.
+     */
+    private void evictAfterCommit(Long itemId) {
+        entityManagerFactory.getCache().evict(Item.class, itemId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                entityManagerFactory.getCache().evict(Item.class, itemId);
+                inventoryReservation.invalidate(itemId);
+            }
+        });
+    }
+}
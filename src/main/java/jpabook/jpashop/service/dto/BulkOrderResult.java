@@ -0,0 +1,24 @@
+package jpabook.jpashop.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+
+import java.util.concurrent.TimeUnit;
+
+@Data
+public class BulkOrderResult {
+
+    private final int orderCount;
+    private final int insertCount; // 주문 + 배송 + 주문 상품 행 수
+
+    @JsonIgnore
+    private final long elapsedNanos;
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    public double getInsertsPerSecond() {
+        return elapsedNanos == 0 ? 0 : insertCount * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+}
@@ -0,0 +1,32 @@
+package jpabook.jpashop.service.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 상품 부분 수정 요청 - null 인 필드는 바꾸지 않는다.
+ * 재고는 동시에 바뀌는 값이라 여기서 바꾸지 않는다. (StockService, InventoryReservation)
+ * 하위 타입에 없는 필드(예: Album 의 author)는 무시한다.
+ */
+@Data
+@NoArgsConstructor
+public class ItemUpdateCommand {
+
+    // 조회할 때 받은 버전, 넘기면 그 사이 다른 수정이 있었을 때 실패한다.
+    private Long version;
+
+    private String name;
+    private Integer price;
+
+    // Book
+    private String author;
+    private String isbn;
+
+    // Album
+    private String artist;
+    private String etc;
+
+    // Movie
+    private String director;
+    private String actor;
+}
@@ -0,0 +1,28 @@
+package jpabook.jpashop.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 주문 생성 요청 - 배송지는 회원 주소를 사용하고, 주문 가격은 주문 시점의 상품 가격을 사용한다.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderCreateCommand {
+
+    private Long memberId;
+    private List<OrderLine> orderLines = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class OrderLine {
+        private Long itemId;
+        private int count;
+    }
+}
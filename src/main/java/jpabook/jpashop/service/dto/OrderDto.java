@@ -0,0 +1,30 @@
+package jpabook.jpashop.service.dto;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 주문 단건/목록 API 응답 DTO
+ * 서비스 계층에서도 만들어 캐시에 담을 수 있도록 컨트롤러 밖으로 꺼냈다.
+ * OrderDtoCache 가 같은 인스턴스를 모든 호출자에게 돌려주므로 불변으로 만든다. (Address 도 setter 가 없는 값 타입이다.)
+ */
+@Data
+public class OrderDto {
+    private final Long orderId;
+    private final String name;
+    private final LocalDateTime orderDate; //주문시간
+    private final OrderStatus orderStatus;
+    private final Address address;
+
+    public OrderDto(Order order) {
+        orderId = order.getId();
+        name = order.getMember().getName();
+        orderDate = order.getOrderDateTime();
+        orderStatus = order.getOrderStatus();
+        address = order.getDelivery().getAddress();
+    }
+}
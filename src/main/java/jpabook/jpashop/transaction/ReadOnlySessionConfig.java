@@ -0,0 +1,37 @@
+package jpabook.jpashop.transaction;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.JpaVendorAdapter;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+/**
+ * 읽기 전용 트랜잭션의 엔티티를 읽기 전용으로 조회한다. (jpashop.read-only-session.enabled=false 로 끌 수 있다.)
+ *
+ * JpaDialect 는 JpaVendorAdapter 가 만들어 EntityManagerFactory 와 JpaTransactionManager 에 전달한다.
+ * 스프링 부트가 만드는 어댑터를 대신하므로, 부트와 같은 방식으로 spring.jpa 설정을 적용한다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "jpashop.read-only-session", name = "enabled", matchIfMissing = true)
+public class ReadOnlySessionConfig {
+
+    @Bean
+    JpaVendorAdapter jpaVendorAdapter(JpaProperties properties) {
+        HibernateJpaVendorAdapter adapter = new HibernateJpaVendorAdapter() {
+            private final HibernateJpaDialect jpaDialect = new ReadOnlySessionJpaDialect();
+
+            @Override
+            public HibernateJpaDialect getJpaDialect() {
+                return jpaDialect;
+            }
+        };
+        adapter.setShowSql(properties.isShowSql());
+        if (properties.getDatabase() != null) adapter.setDatabase(properties.getDatabase());
+        if (properties.getDatabasePlatform() != null) adapter.setDatabasePlatform(properties.getDatabasePlatform());
+        adapter.setGenerateDdl(properties.isGenerateDdl());
+        return adapter;
+    }
+}
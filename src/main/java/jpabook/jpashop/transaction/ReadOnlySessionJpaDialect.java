@@ -0,0 +1,78 @@
+package jpabook.jpashop.transaction;
+
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.ResourceTransactionDefinition;
+
+import javax.persistence.EntityManager;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * 읽기 전용 트랜잭션에서 조회한 엔티티를 모두 읽기 전용(session.setDefaultReadOnly)으로 만드는 JpaDialect
+ *
+ * 읽기 전용 엔티티는 변경 감지용 스냅샷(조회 시점 값 배열)을 만들지 않고, 플러시 대상에서도 빠진다.
+ * 그래서 리포지토리의 find, 조회 쿼리마다 읽기 전용 힌트를 줄 필요가 없다. (플러시 모드 MANUAL 은 HibernateJpaDialect 가 이미 설정한다.)
+ *
+ * HibernateJpaDialect 도 트랜잭션을 위해 새로 연 EntityManager 에는 같은 설정을 한다.
+ * 하지만 OSIV 처럼 트랜잭션 전에 열려 있던 EntityManager 에는 하지 않으므로, 그 경우를 이 클래스가 맡는다.
+ * - 읽기 전용 트랜잭션: 시작할 때 기본값을 읽기 전용으로 바꾸고, 끝나면 되돌린다. 조회된 엔티티는 읽기 전용으로 남는다.
+ * - 쓰기 트랜잭션: 앞선 읽기 전용 트랜잭션이 남긴 엔티티를 다시 수정 가능하게 만든 뒤 시작한다.
+ *   그래야 같은 요청에서 조회 후 수정하는 흐름이 그대로 동작한다. (이때 스냅샷은 현재 값으로 만든다.)
+ */
+public class ReadOnlySessionJpaDialect extends HibernateJpaDialect {
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition) throws SQLException {
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        if (isNewEntityManager(definition)) return transactionData;
+
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        if (!definition.isReadOnly()) {
+            makeModifiable(session.getPersistenceContext());
+            return transactionData;
+        }
+        if (session.isDefaultReadOnly()) return transactionData;
+        session.setDefaultReadOnly(true);
+        return new ReadOnlySessionData(transactionData, session);
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if (transactionData instanceof ReadOnlySessionData) {
+            ReadOnlySessionData readOnlySessionData = (ReadOnlySessionData) transactionData;
+            readOnlySessionData.session.setDefaultReadOnly(false);
+            transactionData = readOnlySessionData.delegate;
+        }
+        super.cleanupTransaction(transactionData);
+    }
+
+    private boolean isNewEntityManager(TransactionDefinition definition) {
+        return definition instanceof ResourceTransactionDefinition
+                && ((ResourceTransactionDefinition) definition).isLocalResource();
+    }
+
+    private void makeModifiable(PersistenceContext persistenceContext) {
+        for (Map.Entry<Object, EntityEntry> entry : persistenceContext.reentrantSafeEntityEntries()) {
+            EntityEntry entityEntry = entry.getValue();
+            // @Immutable 엔티티는 원래 읽기 전용이다.
+            if (entityEntry.getStatus() == Status.READ_ONLY && entityEntry.getPersister().isMutable()) {
+                persistenceContext.setReadOnly(entry.getKey(), false);
+            }
+        }
+    }
+
+    private static class ReadOnlySessionData {
+        final Object delegate;
+        final SessionImplementor session;
+
+        ReadOnlySessionData(Object delegate, SessionImplementor session) {
+            this.delegate = delegate;
+            this.session = session;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package jpabook.jpashop.cache;
+
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MemberNameFilterTest {
+
+    private static final int NAME_COUNT = 10000;
+
+    @Test
+    @DisplayName("넣은 이름은 항상 있을 수도 있다고 판단한다 (거짓 음성 없음)")
+    public void noFalseNegative() {
+        //Given
+        MemberNameFilter filter = new MemberNameFilter(true, NAME_COUNT, 0.01);
+
+        //When
+        for (int i = 0; i < NAME_COUNT; i++) {
+            filter.put("member" + i);
+        }
+
+        //Then
+        for (int i = 0; i < NAME_COUNT; i++) {
+            assertThat(filter.mightContain("member" + i)).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("예상 이름 수만큼 넣었을 때 오탐률이 목표 근처다")
+    public void falsePositiveRate() {
+        //Given
+        MemberNameFilter filter = new MemberNameFilter(true, NAME_COUNT, 0.01);
+        for (int i = 0; i < NAME_COUNT; i++) {
+            filter.put("member" + i);
+        }
+
+        //When
+        int falsePositives = 0;
+        int probes = 100000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("newcomer" + i)) falsePositives++;
+        }
+
+        //Then
+        double rate = (double) falsePositives / probes;
+        System.out.printf("false positive rate = %.4f (target 0.01), %s%n", rate, filter.getStats());
+        assertThat(rate).isLessThan(0.02);
+    }
+
+    @Test
+    @DisplayName("필터를 끄면 모든 이름을 데이터베이스에서 확인한다")
+    public void disabled() {
+        //Given
+        MemberNameFilter filter = new MemberNameFilter(false, NAME_COUNT, 0.01);
+
+        //When, Then
+        assertThat(filter.mightContain("anyone")).isTrue();
+        assertThat(filter.getStats().getSkipCount()).isZero();
+    }
+}
@@ -0,0 +1,114 @@
+package jpabook.jpashop.cache;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.service.dto.OrderDto;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OrderDtoCacheTest {
+
+    long now;
+    OrderDtoCache cache;
+
+    @Before
+    public void setUp() {
+        now = 0;
+        cache = new OrderDtoCache(2, Duration.ofSeconds(10), () -> now);
+    }
+
+    @Test
+    @DisplayName("최대 크기를 넘으면 가장 오래 조회되지 않은 주문부터 제거한다")
+    public void evictLeastRecentlyUsed() {
+        //Given
+        put(1L, 10L, 100L);
+        put(2L, 20L, 200L);
+        cache.get(1L);
+
+        //When
+        put(3L, 30L, 300L);
+
+        //Then
+        assertThat(cache.get(1L)).isNotNull();
+        assertThat(cache.get(2L)).isNull();
+        assertThat(cache.get(3L)).isNotNull();
+        assertThat(cache.getStats().getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("ttl 이 지난 주문은 조회되지 않는다")
+    public void expireAfterTtl() {
+        //Given
+        put(1L, 10L, 100L);
+
+        //When
+        now += Duration.ofSeconds(10).toNanos();
+
+        //Then
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.getStats().getExpirationCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("회원, 배송이 바뀌면 그 회원, 배송의 주문만 제거한다")
+    public void evictByMemberAndDelivery() {
+        //Given
+        put(1L, 10L, 100L);
+        put(2L, 20L, 200L);
+
+        //When
+        cache.evictMember(10L);
+
+        //Then
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.get(2L)).isNotNull();
+
+        //When
+        cache.evictDelivery(200L);
+
+        //Then
+        assertThat(cache.get(2L)).isNull();
+        assertThat(cache.getStats().getInvalidationCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("조회 도중 무효화가 있었다면 조회한 값을 저장하지 않는다")
+    public void skipPutAfterInvalidation() {
+        //Given
+        long stamp = cache.currentStamp();
+
+        //When
+        cache.evictMember(10L);
+        cache.put(orderDto(1L, 10L, 100L), 10L, 100L, stamp);
+
+        //Then
+        assertThat(cache.get(1L)).isNull();
+    }
+
+    private void put(Long orderId, Long memberId, Long deliveryId) {
+        cache.put(orderDto(orderId, memberId, deliveryId), memberId, deliveryId, cache.currentStamp());
+    }
+
+    private OrderDto orderDto(Long orderId, Long memberId, Long deliveryId) {
+        Member member = new Member();
+        member.setId(memberId);
+        member.setName("member" + memberId);
+
+        Delivery delivery = new Delivery();
+        delivery.setId(deliveryId);
+        delivery.setAddress(new Address("서울", "1", "1111"));
+
+        Order order = new Order();
+        order.setId(orderId);
+        order.setMember(member);
+        order.setDelivery(delivery);
+        return new OrderDto(order);
+    }
+}
@@ -0,0 +1,114 @@
+package jpabook.jpashop.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.service.MemberService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 라우팅을 켜고 애플리케이션 전체(JpaTransactionManager, 서비스의 @Transactional)로 원본/복제본을 나누는지 확인한다.
+ * 원본과 복제본은 각각 다른 H2 메모리 데이터베이스다. 복제본에는 테스트마다 원본의 스키마와 데이터를 복사하고,
+ * 한쪽에만 있는 회원으로 어느 데이터베이스에서 조회했는지 확인한다.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "jpashop.datasource.routing.enabled=true",
+        "spring.datasource.url=" + DataSourceRoutingConfigTest.PRIMARY_URL,
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=3",
+        "jpashop.datasource.routing.replicas[0].url=" + DataSourceRoutingConfigTest.REPLICA_URL,
+        "jpashop.datasource.routing.replicas[0].username=sa",
+        "jpashop.datasource.routing.replicas[0].password="
+})
+public class DataSourceRoutingConfigTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired DataSource dataSource;
+    @Autowired MemberService memberService;
+
+    JdbcTemplate primary;
+    JdbcTemplate replica;
+    Path script;
+
+    @Before
+    public void copyPrimaryToReplica() throws Exception {
+        primary = new JdbcTemplate(new DriverManagerDataSource(PRIMARY_URL, "sa", ""));
+        replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+        script = Files.createTempFile("routing-primary", ".sql");
+        primary.execute("script to '" + script + "'");
+        replica.execute("drop all objects");
+        replica.execute("runscript from '" + script + "'");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(script);
+    }
+
+    @Test
+    @DisplayName("읽기 전용 서비스 메서드는 복제본에서 조회한다")
+    public void readOnlyServiceUsesReplica() {
+        //Given
+        String name = "replica-only-" + System.nanoTime();
+        replica.update("insert into member (id, name) values (?, ?)", 999_999_999L, name);
+
+        //When
+        int found = memberService.findByName(name).size();
+
+        //Then
+        assertThat(found).isEqualTo(1);
+        assertThat(countMembers(primary, name)).isZero();
+    }
+
+    @Test
+    @DisplayName("쓰기 서비스 메서드는 원본에 저장한다")
+    public void writeServiceUsesPrimary() {
+        //Given
+        Member member = new Member();
+        member.setName("primary-only-" + System.nanoTime());
+
+        //When
+        memberService.save(member);
+
+        //Then
+        assertThat(countMembers(primary, member.getName())).isEqualTo(1);
+        assertThat(countMembers(replica, member.getName())).isZero();
+    }
+
+    @Test
+    @DisplayName("원본 커넥션 풀에 spring.datasource.hikari 설정이 적용된다")
+    public void bindHikariSettingsToPrimary() {
+        DataSource target = dataSource;
+        while (target instanceof DelegatingDataSource) {
+            target = ((DelegatingDataSource) target).getTargetDataSource();
+        }
+
+        assertThat(target).isInstanceOf(ReplicaRoutingDataSource.class);
+        HikariDataSource primaryPool = (HikariDataSource) ((ReplicaRoutingDataSource) target).getPrimary();
+        assertThat(primaryPool.getMaximumPoolSize()).isEqualTo(3);
+        assertThat(primaryPool.getPoolName()).isEqualTo("primary");
+    }
+
+    private int countMembers(JdbcTemplate jdbcTemplate, String name) {
+        return jdbcTemplate.queryForObject("select count(*) from member where name = ?", Integer.class, name);
+    }
+}
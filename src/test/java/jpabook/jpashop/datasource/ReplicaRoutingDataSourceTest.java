@@ -0,0 +1,125 @@
+package jpabook.jpashop.datasource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 원본 1개, 복제본 2개를 각각 다른 H2 메모리 데이터베이스로 띄우고, 각 데이터베이스에 자기 이름을 저장해 둔다.
+ * 어떤 데이터베이스에서 조회했는지는 조회한 이름으로 확인한다.
+ * 복제본 장애는 비밀번호를 틀리게 바꿔 연결이 실패하도록 흉내낸다.
+ */
+public class ReplicaRoutingDataSourceTest {
+
+    DriverManagerDataSource primary;
+    DriverManagerDataSource replica1;
+    DriverManagerDataSource replica2;
+
+    ReplicaRoutingDataSource routingDataSource;
+    JdbcTemplate jdbcTemplate;
+    TransactionTemplate readWriteTransaction;
+    TransactionTemplate readOnlyTransaction;
+
+    @Before
+    public void setUp() {
+        long suffix = System.nanoTime();
+        primary = h2("primary", suffix);
+        replica1 = h2("replica1", suffix);
+        replica2 = h2("replica2", suffix);
+
+        routingDataSource = new ReplicaRoutingDataSource(primary, List.of(replica1, replica2));
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @After
+    public void tearDown() {
+        for (DriverManagerDataSource dataSource : List.of(primary, replica1, replica2)) {
+            dataSource.setPassword("");
+            new JdbcTemplate(dataSource).execute("shutdown");
+        }
+    }
+
+    @Test
+    @DisplayName("읽기 전용 트랜잭션은 복제본을 돌아가며 사용하고, 나머지는 원본을 사용한다")
+    public void routeByReadOnly() {
+        //When
+        List<String> reads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            reads.add(readOnlyTransaction.execute(status -> whoAmI()));
+        }
+        String write = readWriteTransaction.execute(status -> whoAmI());
+
+        //Then
+        assertThat(reads).containsExactly("replica1", "replica2", "replica1", "replica2");
+        assertThat(write).isEqualTo("primary");
+        // 트랜잭션 밖은 원본
+        assertThat(whoAmI()).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("연결할 수 없는 복제본은 건너뛰고, 모든 복제본이 안되면 원본을 사용한다")
+    public void skipUnhealthyReplica() {
+        //Given
+        replica1.setPassword("wrong");
+
+        //When, Then
+        assertThat(readOnlyTransaction.execute(status -> whoAmI())).isEqualTo("replica2");
+        assertThat(routingDataSource.isHealthy(0)).isFalse();
+        assertThat(readOnlyTransaction.execute(status -> whoAmI())).isEqualTo("replica2");
+
+        replica2.setPassword("wrong");
+        assertThat(readOnlyTransaction.execute(status -> whoAmI())).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("상태 확인에 성공한 복제본은 다시 사용한다")
+    public void recoverReplica() {
+        //Given
+        replica1.setPassword("wrong");
+        routingDataSource.checkHealth(1);
+        assertThat(routingDataSource.isHealthy(0)).isFalse();
+
+        //When
+        replica1.setPassword("");
+        routingDataSource.checkHealth(1);
+
+        //Then
+        assertThat(routingDataSource.isHealthy(0)).isTrue();
+        List<String> reads = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            reads.add(readOnlyTransaction.execute(status -> whoAmI()));
+        }
+        assertThat(reads).containsExactlyInAnyOrder("replica1", "replica2");
+    }
+
+    private String whoAmI() {
+        return jdbcTemplate.queryForObject("select name from node", String.class);
+    }
+
+    private DriverManagerDataSource h2(String name, long suffix) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "-" + suffix + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table node (name varchar(20))");
+        jdbcTemplate.update("insert into node values (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,271 @@
+package jpabook.jpashop.inventory;
+
+import jpabook.jpashop.domain.StockReservationStatus;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.StockReservationRepository;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.StockService;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 메모리 재고 예약과 데이터베이스 반영
+ * 반영(flush)과 커밋 후 이벤트를 확인해야 하므로 @Transactional 없이 실행한다.
+ * 예약은 주기적인 반영(@Scheduled)으로 테스트 도중에도 반영될 수 있어, 반영 시점과 관계없는 값만 확인한다.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class InventoryReservationTest {
+
+    private static final int STOCK = 100;
+    private static final int THREADS = 8;
+    private static final int ATTEMPTS_PER_THREAD = 20; // 총 160번 시도, 재고보다 많다.
+
+    @Autowired InventoryReservation inventoryReservation;
+    @Autowired StockService stockService;
+    @Autowired ItemService itemService;
+    @Autowired ItemRepository itemRepository;
+    @Autowired StockReservationRepository stockReservationRepository;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @Test
+    @DisplayName("동시에 예약해도 재고만큼만 예약되고, 반영 후 데이터베이스 재고가 0이 된다")
+    public void concurrentReserveNoOversell() throws Exception {
+        //Given
+        Long itemId = createBook("FLASH SALE BOOK");
+
+        //When
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger outOfStock = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int attempt = 0; attempt < ATTEMPTS_PER_THREAD; attempt++) {
+                    try {
+                        inventoryReservation.reserve(itemId, 1);
+                        reserved.incrementAndGet();
+                    } catch (IllegalStateException e) {
+                        outOfStock.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+        inventoryReservation.flush();
+
+        //Then
+        assertThat(reserved.get()).isEqualTo(STOCK);
+        assertThat(outOfStock.get()).isEqualTo(THREADS * ATTEMPTS_PER_THREAD - STOCK);
+        assertThat(inventoryReservation.getAvailable(itemId)).isZero();
+        assertThat(findStockQuantity(itemId)).isZero();
+        System.out.println("reserve latency: " + inventoryReservation.getStats());
+    }
+
+    @Test
+    @DisplayName("취소한 예약은 재고에서 빠지지 않는다")
+    public void flushNetDelta() {
+        //Given
+        Long itemId = createBook("NET DELTA BOOK");
+
+        //When
+        inventoryReservation.reserve(itemId, 10);
+        Long reservationId = inventoryReservation.reserve(itemId, 5);
+        inventoryReservation.release(reservationId);
+
+        inventoryReservation.flush();
+
+        //Then
+        assertThat(findStockQuantity(itemId)).isEqualTo(STOCK - 10);
+        assertThat(inventoryReservation.getAvailable(itemId)).isEqualTo(STOCK - 10);
+        assertThat(findStatus(reservationId)).isEqualTo(StockReservationStatus.RELEASED);
+    }
+
+    @Test
+    @DisplayName("반영한 예약을 취소하면 데이터베이스 재고를 되돌린다")
+    public void releaseAppliedReservation() {
+        //Given
+        Long itemId = createBook("RELEASE APPLIED BOOK");
+        Long reservationId = inventoryReservation.reserve(itemId, 10);
+        inventoryReservation.flush();
+        assertThat(findStatus(reservationId)).isEqualTo(StockReservationStatus.APPLIED);
+
+        //When
+        inventoryReservation.release(reservationId);
+
+        //Then
+        assertThat(findStockQuantity(itemId)).isEqualTo(STOCK);
+        assertThat(inventoryReservation.getAvailable(itemId)).isEqualTo(STOCK);
+    }
+
+    @Test
+    @DisplayName("없는 예약이나 이미 취소한 예약은 취소할 수 없고 재고는 그대로다")
+    public void releaseOnlyHeldReservation() {
+        //Given
+        Long itemId = createBook("DOUBLE RELEASE BOOK");
+        Long reservationId = inventoryReservation.reserve(itemId, 10);
+        inventoryReservation.release(reservationId);
+
+        //When, Then
+        assertThatThrownBy(() -> inventoryReservation.release(reservationId))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("이미 취소된 예약입니다.");
+        assertThatThrownBy(() -> inventoryReservation.release(-1L))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(inventoryReservation.getAvailable(itemId)).isEqualTo(STOCK);
+        inventoryReservation.flush();
+        assertThat(findStockQuantity(itemId)).isEqualTo(STOCK);
+    }
+
+    @Test
+    @DisplayName("엔티티로 재고를 바꾸면 커밋 후 메모리 재고에도 반영된다")
+    public void reconcileEntityUpdate() {
+        //Given
+        Long itemId = createBook("RECONCILE BOOK");
+        inventoryReservation.reserve(itemId, 10);
+        inventoryReservation.flush();
+
+        //When
+        transactionTemplate.executeWithoutResult(status -> itemRepository.findById(itemId).addStock(5));
+        inventoryReservation.reserve(itemId, 1);
+        inventoryReservation.flush();
+
+        //Then
+        assertThat(inventoryReservation.getAvailable(itemId)).isEqualTo(STOCK - 10 + 5 - 1);
+        assertThat(findStockQuantity(itemId)).isEqualTo(STOCK - 10 + 5 - 1);
+    }
+
+    @Test
+    @DisplayName("조건부 update 로 차감하면 먼저 받은 예약을 반영하고, 커밋 후 메모리 재고를 다시 불러온다")
+    public void invalidateAfterConditionalUpdate() {
+        //Given
+        Long itemId = createBook("INVALIDATE BOOK");
+        inventoryReservation.reserve(itemId, 10);
+
+        //When
+        stockService.removeStock(itemId, 2, StockService.Mode.CONDITIONAL_UPDATE);
+
+        //Then
+        assertThat(inventoryReservation.getAvailable(itemId)).isNull();
+        inventoryReservation.reserve(itemId, 1);
+        assertThat(inventoryReservation.getAvailable(itemId)).isEqualTo(STOCK - 13);
+        inventoryReservation.flush();
+        assertThat(findStockQuantity(itemId)).isEqualTo(STOCK - 13);
+    }
+
+    @Test
+    @DisplayName("예약한 재고는 다른 경로로 차감할 수 없다")
+    public void otherPathsCannotTakeReservedStock() {
+        //Given
+        Long itemId = createBook("RESERVED OUT BOOK");
+        inventoryReservation.reserve(itemId, STOCK);
+
+        //When, Then
+        assertThatThrownBy(() -> stockService.removeStock(itemId, 1, StockService.Mode.CONDITIONAL_UPDATE))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("재고가 부족합니다.");
+        assertThatThrownBy(() -> stockService.removeStock(itemId, 1, StockService.Mode.OPTIMISTIC))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("재고가 부족합니다.");
+        inventoryReservation.flush();
+        assertThat(findStockQuantity(itemId)).isZero();
+    }
+
+    @Test
+    @DisplayName("반영할 때 재고가 모자라면 음수로 만들지 않고 그 예약을 REJECTED 로 남긴다")
+    public void flushNeverGoesNegative() {
+        //Given
+        Long itemId = createBook("REJECT BOOK");
+        Long appliedId = inventoryReservation.reserve(itemId, 1);
+        // 이벤트 없이 예약을 무시하고 재고를 줄인다. (메모리 재고는 모른다.)
+        transactionTemplate.executeWithoutResult(status -> itemRepository.addStockQuantity(itemId, -95));
+        Long rejectedId = inventoryReservation.reserve(itemId, 10);
+
+        //When
+        inventoryReservation.flush();
+
+        //Then
+        assertThat(findStatus(appliedId)).isEqualTo(StockReservationStatus.APPLIED);
+        assertThat(findStatus(rejectedId)).isEqualTo(StockReservationStatus.REJECTED);
+        assertThat(findStockQuantity(itemId)).isEqualTo(STOCK - 1 - 95);
+        assertThat(inventoryReservation.getAvailable(itemId)).isNull();
+        inventoryReservation.reserve(itemId, 1);
+        assertThat(inventoryReservation.getAvailable(itemId)).isEqualTo(STOCK - 1 - 95 - 1);
+    }
+
+    @Test
+    @DisplayName("무효화한 카운터에 남은 예약은 다시 불러온 카운터로 넘어가고, 그 예약도 아이디로 취소할 수 있다")
+    public void invalidateKeepsPendingReservations() {
+        //Given
+        Long itemId = createBook("HANDOVER BOOK");
+        inventoryReservation.reserve(itemId, 10);
+        Long releasedId = inventoryReservation.reserve(itemId, 5);
+
+        //When
+        inventoryReservation.invalidate(itemId);
+        inventoryReservation.reserve(itemId, 1);
+        assertThat(inventoryReservation.getAvailable(itemId)).isEqualTo(STOCK - 16);
+        inventoryReservation.release(releasedId);
+
+        //Then
+        assertThat(inventoryReservation.getAvailable(itemId)).isEqualTo(STOCK - 11);
+        inventoryReservation.flush();
+        assertThat(findStockQuantity(itemId)).isEqualTo(STOCK - 11);
+        assertThat(findStatus(releasedId)).isEqualTo(StockReservationStatus.RELEASED);
+    }
+
+    @Test
+    @DisplayName("재고보다 많이 예약하면 예외가 발생하고 재고는 그대로다")
+    public void reserveMoreThanStock() {
+        //Given
+        Long itemId = createBook("SMALL STOCK BOOK");
+
+        //When, Then
+        assertThatThrownBy(() -> inventoryReservation.reserve(itemId, STOCK + 1))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("재고가 부족합니다.");
+        assertThat(inventoryReservation.getAvailable(itemId)).isEqualTo(STOCK);
+    }
+
+    private Long createBook(String name) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(STOCK);
+        return itemService.save(book);
+    }
+
+    private StockReservationStatus findStatus(Long reservationId) {
+        return transactionTemplate.execute(status -> stockReservationRepository.findById(reservationId).getStatus());
+    }
+
+    // 2차 캐시를 거치지 않고 데이터베이스 값을 읽는다.
+    private int findStockQuantity(Long itemId) {
+        return transactionTemplate.execute(status -> itemRepository.findItemStock(itemId)).getStockQuantity();
+    }
+}
@@ -0,0 +1,89 @@
+package jpabook.jpashop.json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Accept 헤더에 따라 같은 DTO 를 JSON, CBOR, Smile 로 응답하는지 확인한다.
+ * 데이터는 InitDB 가 저장한 주문을 사용한다.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class BinaryFormatTest {
+
+    private static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+
+    @Autowired MockMvc mockMvc;
+    @Autowired ObjectMapper objectMapper;
+
+    private final ObjectMapper cborReader = new ObjectMapper(new CBORFactory());
+    private final ObjectMapper smileReader = new ObjectMapper(new SmileFactory());
+
+    @Test
+    @DisplayName("주문 목록을 Accept 헤더로 고른 형식으로 응답하고, 바이너리 형식이 JSON 보다 작다")
+    public void orders() throws Exception {
+        //When
+        byte[] json = perform("/orders", MediaType.APPLICATION_JSON);
+        byte[] cbor = perform("/orders", MediaType.APPLICATION_CBOR);
+        byte[] smile = perform("/orders", SMILE);
+
+        //Then
+        JsonNode expected = objectMapper.readTree(json);
+        assertThat(expected.size()).isGreaterThan(0);
+        assertThat(cborReader.readTree(cbor)).isEqualTo(expected);
+        assertThat(smileReader.readTree(smile)).isEqualTo(expected);
+
+        System.out.printf("/orders json = %,d bytes, cbor = %,d bytes, smile = %,d bytes%n", json.length, cbor.length, smile.length);
+        assertThat(cbor.length).isLessThan(json.length);
+        assertThat(smile.length).isLessThan(json.length);
+    }
+
+    @Test
+    @DisplayName("주문 단건 DTO 도 같은 내용을 바이너리 형식으로 응답한다")
+    public void orderDto() throws Exception {
+        //Given
+        long orderId = objectMapper.readTree(perform("/orders", MediaType.APPLICATION_JSON)).get(0).get("orderId").asLong();
+        String url = "/order/dto/" + orderId;
+
+        //When
+        JsonNode expected = objectMapper.readTree(perform(url, MediaType.APPLICATION_JSON));
+        JsonNode cbor = cborReader.readTree(perform(url, MediaType.APPLICATION_CBOR));
+        JsonNode smile = smileReader.readTree(perform(url, SMILE));
+
+        //Then
+        assertThat(cbor).isEqualTo(expected);
+        assertThat(smile).isEqualTo(expected);
+    }
+
+    @Test
+    @DisplayName("Accept 헤더가 없으면 JSON 으로 응답한다")
+    public void jsonByDefault() throws Exception {
+        mockMvc.perform(get("/orders"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    private byte[] perform(String url, MediaType mediaType) throws Exception {
+        return mockMvc.perform(get(url).accept(mediaType))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(mediaType))
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+}
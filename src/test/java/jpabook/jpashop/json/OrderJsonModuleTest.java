@@ -0,0 +1,118 @@
+package jpabook.jpashop.json;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.hibernate5.Hibernate5Module;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.query.OrderSimpleQueryDto;
+import jpabook.jpashop.service.dto.OrderDto;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 스프링 부트의 ObjectMapper 설정(Hibernate5Module, 날짜는 문자열)에서 OrderJsonModule 유무에 따라 같은 JSON 이 나오는지 확인한다.
+ */
+public class OrderJsonModuleTest {
+
+    private final ObjectMapper defaultMapper = mapperBuilder(false).build();
+    private final ObjectMapper orderJsonMapper = mapperBuilder(true).build();
+
+    @Test
+    @DisplayName("OrderDto 를 기본 직렬화와 같은 JSON 으로 쓴다")
+    public void orderDto() throws Exception {
+        //Given
+        Member member = new Member();
+        member.setName("userA \"따옴표\" \\ \n");
+        member.setAddress(new Address("서울", "1", "1111"));
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        Order order = Order.createOrder(member, delivery);
+        order.setId(4L);
+        order.setOrderDateTime(LocalDateTime.of(2022, 1, 2, 3, 4, 0, 5000));
+
+        Order empty = new Order();
+        empty.setMember(new Member());
+        empty.setDelivery(new Delivery());
+
+        List<OrderDto> orderDtos = List.of(new OrderDto(order), new OrderDto(empty));
+
+        //Then
+        assertSameJson(orderDtos);
+    }
+
+    @Test
+    @DisplayName("OrderSimpleQueryDto 를 기본 직렬화와 같은 JSON 으로 쓴다")
+    public void orderSimpleQueryDto() throws Exception {
+        List<OrderSimpleQueryDto> orderDtos = List.of(
+                new OrderSimpleQueryDto(1L, "userA", LocalDateTime.of(2022, 1, 2, 0, 0), OrderStatus.CANCLE,
+                        new Address("부산", null, "2222")),
+                new OrderSimpleQueryDto(2L, null, null, null, null));
+
+        assertSameJson(orderDtos);
+    }
+
+    @Test
+    @DisplayName("날짜, enum 직렬화 설정을 바꾸면 그 설정을 따른다")
+    public void followSerializationFeatures() throws Exception {
+        OrderSimpleQueryDto orderDto = new OrderSimpleQueryDto(1L, "userA", LocalDateTime.of(2022, 1, 2, 3, 4, 5),
+                OrderStatus.ORDER, new Address("서울", "1", "1111"));
+
+        for (SerializationFeature feature : List.of(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS,
+                SerializationFeature.WRITE_ENUMS_USING_INDEX)) {
+            assertThat(orderJsonMapper.writer().with(feature).writeValueAsString(orderDto))
+                    .isEqualTo(defaultMapper.writer().with(feature).writeValueAsString(orderDto));
+        }
+    }
+
+    @Test
+    @DisplayName("주문 목록 DTO 밖의 Address 직렬화는 바꾸지 않는다")
+    public void keepOtherAddressSerialization() throws Exception {
+        //Given
+        ObjectMapper mapper = mapperBuilder(true)
+                .mixIn(Address.class, AddressWithoutZipcode.class)
+                .build();
+        Member member = new Member();
+        member.setName("userA");
+        member.setAddress(new Address("서울", "1", "1111"));
+
+        //When
+        String json = mapper.writeValueAsString(member);
+
+        //Then
+        assertThat(json).contains("\"city\":\"서울\"").doesNotContain("zipcode");
+    }
+
+    private void assertSameJson(Object value) throws Exception {
+        String expected = defaultMapper.writeValueAsString(value);
+        String actual = orderJsonMapper.writeValueAsString(value);
+        assertThat(actual).isEqualTo(expected);
+        assertThat(orderJsonMapper.writeValueAsBytes(value)).isEqualTo(defaultMapper.writeValueAsBytes(value));
+    }
+
+    private static Jackson2ObjectMapperBuilder mapperBuilder(boolean orderJsonModule) {
+        Module[] modules = orderJsonModule
+                ? new Module[]{new Hibernate5Module(), new OrderJsonModule()}
+                : new Module[]{new Hibernate5Module()};
+        return Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .modulesToInstall(modules);
+    }
+
+    // 다른 API 가 Address 를 자기 방식으로 직렬화하는 경우
+    abstract static class AddressWithoutZipcode {
+        @JsonIgnore
+        abstract String getZipcode();
+    }
+}
@@ -0,0 +1,184 @@
+package jpabook.jpashop.learningtest;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 하이버네이트 바이트코드 향상 (build.gradle 의 hibernate.enhance)
+ *
+ * [지연 로딩]
+ * Delivery.order 는 mappedBy 일대일이라 배송 테이블에 외래 키가 없다. 프록시를 넣으려면 주문이 있는지부터 알아야 하므로,
+ * 향상 전에는 fetch = LAZY 를 지정해도 배송을 조회할 때마다 주문을 한번 더 조회했다. (배송 N건 조회 시 1 + N 쿼리)
+ * 향상 후에는 @LazyToOne(NO_PROXY) 필드에 처음 접근할 때 조회한다.
+ *
+ * [변경 감지]
+ * 향상 전에는 플러시 때 영속성 컨텍스트의 모든 엔티티를 조회 시점의 스냅샷과 속성 하나하나 비교했다.
+ * 향상 후에는 setter 가 변경된 속성 이름을 엔티티에 기록하고(SelfDirtinessTracker), 플러시는 그 기록만 확인한다.
+ *
+ * 플러시 소요 시간은 실행 환경에 따라 달라지므로 출력 결과를 참고한다.
+ * 향상 전과 비교하려면 build.gradle 에서 enableDirtyTracking 을 끄고 같은 테스트를 실행한다.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "logging.level.org.hibernate.SQL=info",
+        "logging.level.org.hibernate.type=info",
+        "logging.level.p6spy=warn"
+})
+@Transactional
+public class BytecodeEnhancementTest {
+
+    private static final int LARGE_CONTEXT_SIZE = 20_000;
+    private static final int CHANGED = 10;
+    private static final int ROUNDS = 20;
+
+    @PersistenceContext
+    EntityManager em;
+
+    Statistics statistics;
+
+    @Before
+    public void setUp() {
+        statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @DisplayName("배송을 조회해도 mappedBy 일대일인 주문은 조회하지 않는다")
+    public void lazyInverseOneToOne() {
+        //Given
+        List<Long> deliveryIds = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            deliveryIds.add(createOrder(i).getDelivery().getId());
+        }
+        clear();
+
+        //When
+        List<Delivery> deliveries = em.createQuery("select d from Delivery d where d.id in :ids", Delivery.class)
+                .setParameter("ids", deliveryIds)
+                .getResultList();
+
+        //Then
+        // 향상 전에는 배송마다 주문 조회 쿼리가 나가 11 이다.
+        assertThat(deliveries).hasSize(10);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(Hibernate.isPropertyInitialized(deliveries.get(0), "order")).isFalse();
+
+        // 필드에 접근할 때 조회한다.
+        Order order = deliveries.get(0).getOrder();
+        assertThat(order.getDelivery()).isSameAs(deliveries.get(0));
+        assertThat(Hibernate.isPropertyInitialized(deliveries.get(0), "order")).isTrue();
+    }
+
+    @Test
+    @DisplayName("향상된 엔티티는 변경된 속성을 스스로 기록한다")
+    public void dirtyTracking() {
+        //Given
+        Book book = createBook(0);
+        clear();
+        Item item = em.find(Item.class, book.getId());
+
+        //When
+        item.setPrice(item.getPrice() + 1000);
+
+        //Then
+        assertThat(item).isInstanceOf(SelfDirtinessTracker.class);
+        assertThat(((SelfDirtinessTracker) item).$$_hibernate_getDirtyAttributes()).containsExactly("price");
+    }
+
+    @Test
+    @DisplayName("엔티티가 많은 영속성 컨텍스트에서 일부만 바꾸고 플러시한다")
+    public void flushLargePersistenceContext() {
+        //Given
+        for (int i = 0; i < LARGE_CONTEXT_SIZE; i++) {
+            createBook(i);
+            if (i % 1000 == 999) {
+                em.flush();
+                em.clear();
+            }
+        }
+        clear();
+        List<Book> books = em.createQuery("select b from Book b where b.name like 'ENHANCE%'", Book.class)
+                .getResultList();
+        assertThat(books).hasSize(LARGE_CONTEXT_SIZE);
+
+        //When
+        long unchangedFlushNanos = 0;
+        long changedFlushNanos = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long beforeNanos = System.nanoTime();
+            em.flush();
+            unchangedFlushNanos += System.nanoTime() - beforeNanos;
+
+            for (int i = 0; i < CHANGED; i++) {
+                Book book = books.get(round * CHANGED + i);
+                book.setPrice(book.getPrice() + 100);
+            }
+            statistics.clear();
+            beforeNanos = System.nanoTime();
+            em.flush();
+            changedFlushNanos += System.nanoTime() - beforeNanos;
+
+            //Then
+            assertThat(statistics.getEntityUpdateCount()).isEqualTo(CHANGED);
+        }
+
+        System.out.printf("managed entities  = %,d%n", LARGE_CONTEXT_SIZE);
+        System.out.printf("flush (no change) = %,d us/op%n", unchangedFlushNanos / ROUNDS / 1000);
+        System.out.printf("flush (%d changed) = %,d us/op%n", CHANGED, changedFlushNanos / ROUNDS / 1000);
+    }
+
+    /**
+     * 영속성 컨텍스트와 2차 캐시를 비우고 통계를 초기화한다.
+     */
+    private void clear() {
+        em.flush();
+        em.clear();
+        em.getEntityManagerFactory().getCache().evictAll();
+        statistics.clear();
+    }
+
+    private Order createOrder(int sequence) {
+        Member member = new Member();
+        member.setName("enhance" + sequence);
+        member.setAddress(new Address("서울", String.valueOf(sequence), "1111"));
+        em.persist(member);
+
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+
+        Order order = Order.createOrder(member, delivery, OrderItem.createOrderItem(createBook(sequence), 10000, 1));
+        em.persist(order);
+        return order;
+    }
+
+    private Book createBook(int sequence) {
+        Book book = new Book();
+        book.setName("ENHANCE" + sequence);
+        book.setPrice(10000);
+        book.setStockQuantity(100);
+        em.persist(book);
+        return book;
+    }
+}
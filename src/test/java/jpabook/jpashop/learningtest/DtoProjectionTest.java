@@ -0,0 +1,166 @@
+package jpabook.jpashop.learningtest;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.query.OrderSimpleQueryDto;
+import jpabook.jpashop.repository.query.OrderSimpleQueryRepository;
+import org.hibernate.Session;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 엔티티 조회 후 DTO 변환 vs DTO 직접 조회
+ *
+ * 엔티티로 조회하면 order, member, delivery 엔티티가 모두 영속성 컨텍스트에 올라간다.
+ * 영속성 컨텍스트는 엔티티마다 변경 감지를 위한 스냅샷(조회 시점의 값 배열)과 EntityEntry 를 함께 만들어 두기 때문에,
+ * 결국 DTO 에 필드 다섯개를 옮겨 담기 위해 그 몇 배의 객체를 만드는 셈이다.
+ *
+ * DTO 로 직접 조회하면 select 절에 지정한 컬럼만 가져오고, 조회 결과는 영속성 컨텍스트가 관리하지 않는다.
+ *
+ * [측정 방법]
+ * 1. 주문 ORDER_COUNT 개를 저장한다.
+ * 2. 각 방식을 WARMUP 번 실행해 JIT 컴파일이 끝나도록 한 뒤, MEASURE 번 실행한다.
+ * 3. 매 실행 전에 영속성 컨텍스트를 비워(1차 캐시 영향 제거) 실제 조회 비용만 측정한다.
+ * 4. 스레드가 할당한 힙 크기(ThreadMXBean)와 소요 시간을 1회 평균으로 출력한다.
+ *
+ * 측정값은 실행 환경에 따라 달라지므로 출력 결과를 참고한다. 더 정밀한 측정은 JMH 로 해야 한다.
+ * (SQL, 바인딩 파라미터 로그가 측정값을 덮어버리지 않도록 이 테스트에서는 로그 레벨을 올린다.)
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "logging.level.org.hibernate.SQL=info",
+        "logging.level.org.hibernate.type=info"
+})
+@Transactional
+public class DtoProjectionTest {
+
+    private static final int ORDER_COUNT = 500;
+    private static final int WARMUP = 20;
+    private static final int MEASURE = 50;
+
+    @Autowired OrderRepository orderRepository;
+    @Autowired OrderSimpleQueryRepository orderSimpleQueryRepository;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Before
+    public void setUp() {
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            Member member = new Member();
+            member.setName("projection" + i);
+            member.setAddress(new Address("서울", String.valueOf(i), "1111"));
+            em.persist(member);
+
+            Book book = new Book();
+            book.setName("BOOK" + i);
+            book.setPrice(10000);
+            book.setStockQuantity(100);
+            em.persist(book);
+
+            Delivery delivery = new Delivery();
+            delivery.setAddress(member.getAddress());
+
+            Order order = Order.createOrder(member, delivery,
+                    OrderItem.createOrderItem(book, 10000, 1),
+                    OrderItem.createOrderItem(book, 10000, 2));
+            em.persist(order);
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    @DisplayName("DTO 직접 조회 결과는 영속성 컨텍스트에 올라가지 않는다")
+    public void projectionIsNotManaged() {
+        //When
+        List<OrderSimpleQueryDto> dtos = orderSimpleQueryRepository.findOrderDtos();
+
+        //Then
+        assertThat(dtos).hasSize(orderRepository.findAll().size());
+        em.clear();
+        orderSimpleQueryRepository.findOrderDtos();
+        assertThat(em.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("엔티티 조회 후 변환과 DTO 직접 조회의 할당량, 소요 시간 비교")
+    public void compareEntityMappingAndProjection() {
+        Supplier<List<OrderSimpleQueryDto>> entityThenMap = () -> orderRepository.findAllWithMemberDelivery().stream()
+                .map(o -> new OrderSimpleQueryDto(o.getId(), o.getMember().getName(), o.getOrderDateTime(),
+                        o.getOrderStatus(), o.getDelivery().getAddress()))
+                .collect(Collectors.toList());
+        Supplier<List<OrderSimpleQueryDto>> projection = () -> orderSimpleQueryRepository.findOrderDtos();
+
+        //When
+        Measurement entity = measure(entityThenMap);
+        Measurement dto = measure(projection);
+
+        //Then
+        System.out.println("entity -> dto     = " + entity);
+        System.out.println("dto projection    = " + dto);
+        assertThat(entity.resultSize).isEqualTo(dto.resultSize);
+    }
+
+    private Measurement measure(Supplier<List<OrderSimpleQueryDto>> query) {
+        for (int i = 0; i < WARMUP; i++) {
+            query.get();
+            em.clear();
+        }
+
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        long allocated = 0;
+        long elapsed = 0;
+        int resultSize = 0;
+        for (int i = 0; i < MEASURE; i++) {
+            em.clear();
+            long beforeBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+            long beforeNanos = System.nanoTime();
+
+            resultSize = query.get().size();
+
+            elapsed += System.nanoTime() - beforeNanos;
+            allocated += threadMXBean.getThreadAllocatedBytes(threadId) - beforeBytes;
+        }
+        return new Measurement(allocated / MEASURE, elapsed / MEASURE, resultSize);
+    }
+
+    static class Measurement {
+        final long bytesPerOp;
+        final long nanosPerOp;
+        final int resultSize;
+
+        Measurement(long bytesPerOp, long nanosPerOp, int resultSize) {
+            this.bytesPerOp = bytesPerOp;
+            this.nanosPerOp = nanosPerOp;
+            this.resultSize = resultSize;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d bytes/op, %,d us/op (rows=%d)", bytesPerOp, nanosPerOp / 1000, resultSize);
+        }
+    }
+}
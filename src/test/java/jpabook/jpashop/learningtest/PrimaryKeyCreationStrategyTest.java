@@ -1,8 +1,12 @@
 package jpabook.jpashop.learningtest;
 
+import jpabook.jpashop.domain.Delivery;
 import jpabook.jpashop.domain.EntityTestDomain.IdentityTestEntity;
 import jpabook.jpashop.domain.EntityTestDomain.SequenceTestEntity;
 import jpabook.jpashop.domain.EntityTestDomain.SequenceUsingAllocationSizeTestEntity;
+import jpabook.jpashop.domain.PooledLoSequenceGenerator;
+import jpabook.jpashop.monitor.QueryCount;
+import jpabook.jpashop.monitor.QueryCounter;
 import org.assertj.core.api.Assertions;
 import org.junit.Test;
 import org.junit.jupiter.api.DisplayName;
@@ -13,6 +17,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * 이 테스트는 기본키 생성 전략 관련 테스트이다.
@@ -72,6 +78,12 @@ import javax.persistence.PersistenceContext;
  *  3-1. allocationSize 설정 전, 생성한 entity 개수만큼 요청감
  *  3-2. allocationSize 설정 후, 2번
  *
+ * -SEQUENCE 전략 테스트 (pooled-lo, 도메인 엔티티)-
+ * 도메인 엔티티(Order, OrderItem, Delivery, Member, Item, Category)는 PooledLoSequenceGenerator 로 엔티티마다 시퀀스를 따로 사용한다.
+ * 1. allocation_size(50)개마다 시퀀스를 한번만 호출하는지 확인
+ * 2. IDENTITY 와 달리 persist() 시점에 insert 가 나가지 않는지 확인 (쓰기 지연, JDBC 배치 가능)
+ * (각 전략의 초당 insert 수 비교는 src/jmh 의 IdAllocationBenchmark)
+ *
  */
 
 @RunWith(SpringRunner.class)
@@ -191,5 +203,34 @@ public class PrimaryKeyCreationStrategyTest {
 
     }
 
-
+    /**
+     * @result 엔티티는 51개지만 시퀀스 호출은 최대 2번
+     * call next value for delivery_seq
+     *
+     * 시퀀스 값은 allocation_size 만큼 증가하고, 받아온 값부터 50개의 아이디를 메모리에서 나눠준다.
+     * 앞선 테스트(또는 InitDB)에서 받아둔 블록이 남아있으면 그 블록을 먼저 사용하므로, 호출 횟수는 1번 또는 2번이다.
+     */
+    @Test
+    @DisplayName("SEQUENCE 전략 테스트 - pooled-lo, 도메인 엔티티")
+    @Transactional
+    public void pooledLoSequenceTest() {
+        int allocationSize = PooledLoSequenceGenerator.DEFAULT_ALLOCATION_SIZE;
+        List<Delivery> deliveries = new ArrayList<>();
+
+        QueryCount queryCount = QueryCounter.start("pooledLoSequenceTest");
+        try {
+            for (int i = 0; i < allocationSize + 1; i++) {
+                Delivery delivery = new Delivery();
+                em.persist(delivery);
+                deliveries.add(delivery);
+            }
+        } finally {
+            QueryCounter.end(queryCount);
+        }
+
+        Assertions.assertThat(deliveries).allMatch(delivery -> delivery.getId() != null);
+        Assertions.assertThat(queryCount.getCount("call next value for delivery_seq")).isBetween(1, 2);
+        // 아직 플러시 전이므로 insert 는 나가지 않았다.
+        Assertions.assertThat(queryCount.getCount("insert")).isZero();
+    }
 }
@@ -0,0 +1,91 @@
+package jpabook.jpashop.learningtest;
+
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 2차 캐시
+ * 1차 캐시(영속성 컨텍스트)는 트랜잭션이 끝나면 사라지지만, 2차 캐시는 애플리케이션 범위에서 공유된다.
+ * 식별자로 조회(find)할 때 1차 캐시 -> 2차 캐시 -> 데이터베이스 순서로 찾는다.
+ *
+ * [주의]
+ * READ_WRITE 전략은 캐시에 저장한 트랜잭션보다 나중에 시작한 트랜잭션에서만 캐시 값을 읽을 수 있다.
+ * 그래서 같은 트랜잭션 안에서는 캐시 히트를 확인할 수 없으므로, 이 테스트는 @Transactional 없이 서비스 호출마다 트랜잭션을 새로 연다.
+ * 데이터는 InitDB 가 저장한 회원, 상품을 사용한다.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class SecondLevelCacheTest {
+
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired EntityManagerFactory entityManagerFactory;
+
+    Statistics statistics;
+
+    @Before
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @DisplayName("회원을 두번째 조회할 때는 2차 캐시에서 가져온다")
+    public void memberCache() {
+        //Given
+        long memberId = memberService.findByName("userA").get(0).getId();
+        clearCache();
+
+        //When
+        Member first = memberService.findById(memberId);
+        Member second = memberService.findById(memberId);
+
+        //Then
+        assertThat(second.getName()).isEqualTo(first.getName());
+        assertThat(statistics.getSecondLevelCacheMissCount()).isEqualTo(1);
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("상품(하위 타입 Book)을 두번째 조회할 때는 2차 캐시에서 가져온다")
+    public void itemCache() {
+        //Given
+        Long itemId = itemService.findAll().stream()
+                .filter(item -> item instanceof Book)
+                .findFirst()
+                .map(Item::getId)
+                .orElseThrow();
+        clearCache();
+
+        //When
+        itemService.findById(itemId);
+        Item cached = itemService.findById(itemId);
+
+        //Then
+        // 캐시에서 꺼낸 값도 하위 타입으로 복원된다.
+        assertThat(cached).isInstanceOf(Book.class);
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private void clearCache() {
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+    }
+}
@@ -0,0 +1,118 @@
+package jpabook.jpashop.monitor;
+
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.repository.OrderFetchPlan;
+import jpabook.jpashop.service.OrderService;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 테스트 설정은 open-in-view 끔, 트랜잭션 밖 지연 로딩은 예외(fail)
+ * 데이터는 InitDB 가 저장한 주문을 사용한다.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ConnectionMonitorTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired DataSource dataSource;
+    @Autowired EntityManagerFactory entityManagerFactory;
+    @Autowired OrderService orderService;
+    @Autowired LazyLoadGuard lazyLoadGuard;
+
+    @Test
+    @DisplayName("open-in-view 없이 주문 상품까지 서비스 트랜잭션 안에서 조회하고, 커넥션 점유 시간을 응답 헤더로 돌려준다")
+    public void withItemsWithoutOpenInView() throws Exception {
+        mockMvc.perform(get("/orders/with-items"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name").exists())
+                .andExpect(jsonPath("$.content[0].orderItems[0].itemName").exists())
+                .andExpect(header().exists(ConnectionHoldTimeFilter.CONNECTION_HOLD_TIME_HEADER));
+    }
+
+    @Test
+    @DisplayName("expand 로 지정한 연관관계만 응답에 담고, 지정하지 않은 연관관계는 트랜잭션 밖에서도 건드리지 않는다")
+    public void expandOnlyRequestedAssociations() throws Exception {
+        mockMvc.perform(get("/orders/expand").param("expand", "member"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].orderId").exists())
+                .andExpect(jsonPath("$.content[0].member.name").exists())
+                .andExpect(jsonPath("$.content[0].delivery").doesNotExist())
+                .andExpect(jsonPath("$.content[0].orderItems").doesNotExist());
+
+        mockMvc.perform(get("/orders/expand").param("expand", "orderItems"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].orderItems[0].orderPrice").exists())
+                .andExpect(jsonPath("$.content[0].orderItems[0].item").doesNotExist())
+                .andExpect(jsonPath("$.content[0].member").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("커넥션을 얻은 시점부터 반납할 때까지를 현재 요청의 점유 시간으로 기록한다")
+    public void connectionHoldTime() throws Exception {
+        assertThat(dataSource).isInstanceOf(ConnectionHoldTimeDataSource.class);
+
+        //When
+        ConnectionHoldTime holdTime = ConnectionHoldTime.start();
+        try {
+            try (Connection connection = dataSource.getConnection()) {
+                assertThat(holdTime.hasOpenConnection()).isTrue();
+                Thread.sleep(50);
+            }
+        } finally {
+            ConnectionHoldTime.end();
+        }
+
+        //Then
+        assertThat(holdTime.hasOpenConnection()).isFalse();
+        assertThat(holdTime.getAcquiredCount()).isEqualTo(1);
+        assertThat(holdTime.getHeldNanos()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    @DisplayName("요청 범위 영속성 컨텍스트(OSIV)가 열려 있어도 트랜잭션이 끝난 뒤의 지연 로딩은 막는다")
+    public void rejectLazyLoadingAfterTransaction() {
+        //Given
+        // OpenEntityManagerInViewInterceptor 처럼 요청 범위 EntityManager 를 미리 바인딩한다.
+        EntityManager requestEntityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(requestEntityManager));
+        try {
+            List<Order> orders = orderService.findOrders(null, 1, OrderFetchPlan.NONE);
+            Order order = orders.get(0);
+            long before = lazyLoadGuard.getViolationCount();
+
+            //When, Then
+            assertThatThrownBy(() -> order.getMember().getName())
+                    .isInstanceOf(LazyLoadOutsideTransactionException.class);
+            assertThatThrownBy(() -> order.getOrderItems().size())
+                    .isInstanceOf(LazyLoadOutsideTransactionException.class);
+            assertThat(lazyLoadGuard.getViolationCount()).isEqualTo(before + 2);
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            requestEntityManager.close();
+        }
+    }
+}
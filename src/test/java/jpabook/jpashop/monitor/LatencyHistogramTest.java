@@ -0,0 +1,34 @@
+package jpabook.jpashop.monitor;
+
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("백분위 값은 실제 값보다 작지 않고 12.5% 이상 크지 않다")
+    public void percentileError() {
+        //Given
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 10000; nanos++) {
+            histogram.record(nanos * 1000);
+        }
+
+        //Then
+        assertThat(histogram.getCount()).isEqualTo(10000);
+        assertThat(histogram.getMax()).isEqualTo(10_000_000);
+        assertThat(histogram.getPercentile(50)).isBetween(5_000_000L, 5_625_000L);
+        assertThat(histogram.getPercentile(99)).isBetween(9_900_000L, 10_000_000L);
+        assertThat(histogram.getPercentile(100)).isEqualTo(10_000_000);
+    }
+
+    @Test
+    @DisplayName("기록이 없으면 0을 돌려준다")
+    public void empty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertThat(histogram.getPercentile(99)).isZero();
+    }
+}
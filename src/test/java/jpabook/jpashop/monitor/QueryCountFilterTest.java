@@ -0,0 +1,45 @@
+package jpabook.jpashop.monitor;
+
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 기준을 쿼리 1회로 낮춰서, 페치 조인 조회는 통과하고 지연 로딩이 추가로 나가는 조회는 거부되는지 확인한다.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "jpashop.query-count.max-statements=1",
+        "jpashop.query-count.action=reject"
+})
+@AutoConfigureMockMvc
+public class QueryCountFilterTest {
+
+    @Autowired MockMvc mockMvc;
+
+    @Test
+    @DisplayName("요청 중 실행된 SQL 수를 응답 헤더로 돌려준다")
+    public void queryCountHeader() throws Exception {
+        mockMvc.perform(get("/orders/fetch-join"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(QueryCountFilter.QUERY_COUNT_HEADER, "1"))
+                .andExpect(header().string(QueryCountFilter.QUERY_MAX_REPEAT_HEADER, "1"));
+    }
+
+    @Test
+    @DisplayName("기준을 넘는 SQL 이 실행되려고 하면 요청을 거부한다")
+    public void rejectWhenExceeded() throws Exception {
+        // 주문 조회 1번 이후 배송 지연 로딩 쿼리가 추가로 나간다.
+        mockMvc.perform(get("/orders"))
+                .andExpect(status().isInternalServerError());
+    }
+}
@@ -0,0 +1,89 @@
+package jpabook.jpashop.monitor;
+
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class QueryCounterTest {
+
+    @Test
+    @DisplayName("바인딩 값, IN 절 개수, 공백만 다른 SQL 은 같은 모양이다")
+    public void sqlShape() {
+        assertThat(SqlShape.of("select m.name from member m where m.id = 1"))
+                .isEqualTo(SqlShape.of("select m.name\n  from member m\n where m.id = 25"));
+        assertThat(SqlShape.of("select * from member where name = 'userA'"))
+                .isEqualTo(SqlShape.of("select * from member where name = 'it''s me'"));
+        assertThat(SqlShape.of("select * from delivery d0_ where d0_.delivery_id in (?, ?)"))
+                .isEqualTo("select * from delivery d0_ where d0_.delivery_id in (?...)")
+                .isEqualTo(SqlShape.of("select * from delivery d0_ where d0_.delivery_id in (?,?,?,?)"));
+        // 별칭에 붙은 숫자는 리터럴이 아니다.
+        assertThat(SqlShape.of("select order0_.order_id from orders order0_"))
+                .isEqualTo("select order0_.order_id from orders order0_");
+    }
+
+    @Test
+    @DisplayName("중첩된 범위에는 각각 자기 범위 안에서 실행된 SQL 이 기록된다")
+    public void nestedScopes() {
+        //Given
+        QueryCount request = QueryCounter.start("GET /orders");
+        QueryCounter.record("select * from orders");
+
+        //When
+        QueryCount service = QueryCounter.start("OrderService.findOrders()");
+        QueryCount outermost = QueryCounter.record("select * from member where member_id = ?");
+        QueryCounter.end(service);
+        QueryCounter.record("update orders set status = ? where order_id = ?");
+        QueryCounter.end(request);
+
+        //Then
+        assertThat(outermost).isSameAs(request);
+        assertThat(request.getCount()).isEqualTo(3);
+        assertThat(service.getCount()).isEqualTo(1);
+        assertThat(QueryCounter.record("select 1")).isNull();
+    }
+
+    @Test
+    @DisplayName("같은 모양의 select 반복 횟수를 센다, insert/update 는 반복으로 보지 않는다")
+    public void countRepeatedSelect() {
+        //Given
+        QueryCount queryCount = QueryCounter.start("test");
+
+        //When
+        for (int i = 0; i < 5; i++) {
+            QueryCounter.record("select * from member where member_id = " + i);
+            QueryCounter.record("insert into orders (order_id) values (" + i + ")");
+        }
+        QueryCounter.end(queryCount);
+
+        //Then
+        assertThat(queryCount.getCount()).isEqualTo(10);
+        assertThat(queryCount.getMaxRepeat()).isEqualTo(5);
+        assertThat(queryCount.getMostRepeatedShape()).isEqualTo("select * from member where member_id = ?");
+    }
+
+    @Test
+    @DisplayName("REJECT 모드에서는 같은 모양의 select 가 기준을 넘는 순간 예외를 던진다")
+    public void rejectRepeatedSelect() {
+        //Given
+        QueryCountProperties properties = new QueryCountProperties();
+        properties.setMaxRepeats(2);
+        properties.setAction(QueryCountProperties.Action.REJECT);
+        QueryCountInspector inspector = new QueryCountInspector(new QueryCountPolicy(properties));
+        QueryCount queryCount = QueryCounter.start("test");
+
+        try {
+            //When
+            inspector.inspect("select * from member where member_id = ?");
+            inspector.inspect("select * from member where member_id = ?");
+
+            //Then
+            assertThatThrownBy(() -> inspector.inspect("select * from member where member_id = ?"))
+                    .isInstanceOf(QueryCountExceededException.class)
+                    .hasMessageContaining("N+1");
+        } finally {
+            QueryCounter.end(queryCount);
+        }
+    }
+}
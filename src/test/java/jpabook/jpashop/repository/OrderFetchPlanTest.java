@@ -0,0 +1,52 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Order;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class OrderFetchPlanTest {
+
+    @Test
+    @DisplayName("expand 의 경로 순서, 공백, 중복과 관계없이 같은 그래프를 고른다")
+    public void parse() {
+        //When
+        OrderFetchPlan fetchPlan = OrderFetchPlan.parse(" delivery , member,delivery");
+
+        //Then
+        assertThat(fetchPlan).isEqualTo(OrderFetchPlan.of("member", "delivery"));
+        assertThat(fetchPlan.getToOneGraphName()).isEqualTo(Order.GRAPH_MEMBER_DELIVERY);
+        assertThat(fetchPlan.getCollectionGraphName()).isNull();
+    }
+
+    @Test
+    @DisplayName("orderItems.item 은 orderItems 를 포함한다")
+    public void nestedPathIncludesParent() {
+        //When
+        OrderFetchPlan fetchPlan = OrderFetchPlan.parse("orderItems.item");
+
+        //Then
+        assertThat(fetchPlan.getPaths()).containsExactlyInAnyOrder("orderItems", "orderItems.item");
+        assertThat(fetchPlan.getToOneGraphName()).isNull();
+        assertThat(fetchPlan.getCollectionGraphName()).isEqualTo(Order.GRAPH_ORDER_ITEMS_ITEM);
+    }
+
+    @Test
+    @DisplayName("expand 가 없으면 연관관계를 조회하지 않는다")
+    public void empty() {
+        assertThat(OrderFetchPlan.parse(null)).isSameAs(OrderFetchPlan.NONE);
+        assertThat(OrderFetchPlan.parse(" , ")).isSameAs(OrderFetchPlan.NONE);
+        assertThat(OrderFetchPlan.NONE.getToOneGraphName()).isNull();
+        assertThat(OrderFetchPlan.NONE.getCollectionGraphName()).isNull();
+    }
+
+    @Test
+    @DisplayName("허용되지 않은 경로는 거부한다")
+    public void rejectUnknownPath() {
+        assertThatThrownBy(() -> OrderFetchPlan.parse("member,orderItems.item.categories"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("orderItems.item.categories");
+    }
+}
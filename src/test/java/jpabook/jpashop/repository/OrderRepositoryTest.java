@@ -0,0 +1,305 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Book;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class OrderRepositoryTest {
+
+    @Autowired OrderRepository orderRepository;
+
+    @PersistenceContext
+    EntityManager em;
+
+    Statistics statistics;
+    int sequence;
+
+    @Before
+    public void setUp() {
+        statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @DisplayName("페치 조인 조회 시, 주문 수가 늘어나도 쿼리는 한번만 나간다")
+    public void findAllWithMemberDelivery() {
+        //Given
+        createOrders(3);
+        long fewOrdersQueryCount = countQueries(() -> orderRepository.findAllWithMemberDelivery());
+
+        createOrders(20);
+        long manyOrdersQueryCount = countQueries(() -> orderRepository.findAllWithMemberDelivery());
+
+        //Then
+        assertThat(fewOrdersQueryCount).isEqualTo(1);
+        assertThat(manyOrdersQueryCount).isEqualTo(fewOrdersQueryCount);
+    }
+
+    @Test
+    @DisplayName("페치 조인 없이 조회 시, 주문 수에 비례해 지연 로딩 쿼리가 나간다")
+    public void findAllCausesNPlusOne() {
+        //Given
+        createOrders(5);
+
+        //When
+        long lazyQueryCount = countQueries(() -> orderRepository.findAll());
+        long fetchJoinQueryCount = countQueries(() -> orderRepository.findAllWithMemberDelivery());
+
+        //Then
+        assertThat(lazyQueryCount).isGreaterThan(fetchJoinQueryCount);
+    }
+
+    @Test
+    @DisplayName("키셋 페이징으로 모든 주문을 중복, 누락 없이 순서대로 조회한다")
+    public void findAllWithMemberDeliveryByKeyset() {
+        //Given
+        createOrders(10);
+        em.flush();
+        em.clear();
+        List<Long> allOrderIds = orderRepository.findAll().stream()
+                .map(Order::getId)
+                .sorted()
+                .collect(Collectors.toList());
+
+        //When
+        List<Long> pagedOrderIds = new ArrayList<>();
+        Long cursor = null;
+        while (true) {
+            List<Order> page = orderRepository.findAllWithMemberDelivery(cursor, 3);
+            if (page.isEmpty()) break;
+            page.forEach(order -> pagedOrderIds.add(order.getId()));
+            cursor = page.get(page.size() - 1).getId();
+        }
+
+        //Then
+        assertThat(pagedOrderIds).isEqualTo(allOrderIds);
+    }
+
+    @Test
+    @DisplayName("키셋 페이징은 뒤 페이지도 쿼리 한번으로 조회한다")
+    public void keysetPageQueryCount() {
+        //Given
+        createOrders(10);
+        em.flush();
+        List<Order> firstPage = orderRepository.findAllWithMemberDelivery(null, 3);
+        Long cursor = firstPage.get(firstPage.size() - 1).getId();
+
+        //When
+        long queryCount = countQueries(() -> orderRepository.findAllWithMemberDelivery(cursor, 3));
+
+        //Then
+        assertThat(queryCount).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("스크롤 조회는 모든 주문을 순회하면서 영속성 컨텍스트를 주기적으로 비운다")
+    public void scrollAllWithMemberDelivery() {
+        //Given
+        createOrders(10);
+        em.flush();
+        em.clear();
+        int orderCount = orderRepository.findAll().size();
+        em.clear();
+
+        Session session = em.unwrap(Session.class);
+        List<Long> visitedOrderIds = new ArrayList<>();
+        List<Integer> managedEntityCounts = new ArrayList<>();
+
+        //When
+        orderRepository.scrollAllWithMemberDelivery(3, order -> {
+            visitedOrderIds.add(order.getId());
+            managedEntityCounts.add(session.getStatistics().getEntityCount());
+        });
+
+        //Then
+        assertThat(visitedOrderIds).hasSize(orderCount).doesNotHaveDuplicates();
+        // 영속성 컨텍스트에는 한 배치(주문, 회원, 배송 3건씩)를 넘는 엔티티가 쌓이지 않는다.
+        assertThat(managedEntityCounts).allMatch(count -> count <= 9);
+    }
+
+    @Test
+    @DisplayName("InitDB 로 저장된 주문의 주문 상품, 상품을 배치 페치로 조회한다")
+    public void batchFetchOrderItemsOfInitData() {
+        //When
+        // 애플리케이션 시작 시 가장 먼저 저장되는 InitDB 의 주문 2건만 조회한다. (다른 테스트 클래스가 커밋한 주문은 제외)
+        long queryCount = countQueries(() -> findOrdersWithItems(null, 2));
+
+        //Then
+        // 주문(+회원, 배송) 1번, 주문 상품 IN 1번, 상품 IN 1번
+        assertThat(queryCount).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("주문이 늘어나도 배치 크기 안에서는 주문 상품, 상품 조회 쿼리 수가 늘지 않는다")
+    public void batchFetchOrderItemsQueryCountIsConstant() {
+        //Given
+        // 이 테스트가 저장한 주문만 조회하도록 이전 주문의 마지막 아이디를 cursor 로 사용한다.
+        Long lastOrderId = em.createQuery("select max(o.id) from Order o", Long.class).getSingleResult();
+        createOrders(20);
+
+        //When
+        long queryCount = countQueries(() -> findOrdersWithItems(lastOrderId, 50));
+
+        //Then
+        assertThat(queryCount).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("expand 로 지정한 연관관계는 주문 조회 쿼리 포함 두번의 쿼리로 모두 조회한다")
+    public void findAllWithFetchPlan() {
+        //Given
+        createOrders(5);
+        clearContext();
+
+        //When
+        List<Order> orders = orderRepository.findAll(null, 50, OrderFetchPlan.parse("member,delivery,orderItems.item"));
+        long queryCount = statistics.getPrepareStatementCount();
+        for (Order order : orders) {
+            order.getMember().getName();
+            order.getDelivery().getAddress();
+            order.getOrderItems().forEach(orderItem -> orderItem.getItem().getName());
+        }
+
+        //Then
+        // 주문 + 회원 + 배송 1번, 주문 상품 + 상품 1번, 이후 지연 로딩 쿼리는 없다.
+        assertThat(queryCount).isEqualTo(2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(queryCount);
+    }
+
+    @Test
+    @DisplayName("expand 로 지정하지 않은 연관관계는 조회하지 않는다")
+    public void findAllWithToOneFetchPlan() {
+        //Given
+        createOrders(3);
+        clearContext();
+
+        //When
+        List<Order> orders = orderRepository.findAll(null, 50, OrderFetchPlan.parse("member"));
+
+        //Then
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(orders).allMatch(order -> Hibernate.isInitialized(order.getMember()));
+        assertThat(orders).noneMatch(order -> Hibernate.isInitialized(order.getDelivery()));
+        assertThat(orders).noneMatch(order -> Hibernate.isInitialized(order.getOrderItems()));
+    }
+
+    @Test
+    @DisplayName("주문 단건은 expand 로 지정한 연관관계를 쿼리 한번으로 조회한다")
+    public void findOneWithFetchPlan() {
+        //Given
+        createOrders(1);
+        Long orderId = orderRepository.findAll().get(0).getId();
+        clearContext();
+
+        //When
+        Order order = orderRepository.findOne(orderId, OrderFetchPlan.parse("member,delivery,orderItems.item"));
+        order.getMember().getName();
+        order.getDelivery().getAddress();
+        order.getOrderItems().forEach(orderItem -> orderItem.getItem().getName());
+
+        //Then
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("OrderFetchPlan 이 사용하는 엔티티 그래프는 모두 Order 에 선언되어 있다")
+    public void fetchPlanGraphsAreDeclared() {
+        List<String> expands = List.of("member", "delivery", "member,delivery", "orderItems", "orderItems.item",
+                "member,delivery,orderItems.item");
+        for (String expand : expands) {
+            OrderFetchPlan fetchPlan = OrderFetchPlan.parse(expand);
+            if (fetchPlan.getToOneGraphName() != null) assertThat(em.getEntityGraph(fetchPlan.getToOneGraphName())).isNotNull();
+            if (fetchPlan.getCollectionGraphName() != null) assertThat(em.getEntityGraph(fetchPlan.getCollectionGraphName())).isNotNull();
+        }
+    }
+
+    private List<Order> findOrdersWithItems(Long lastOrderId, int limit) {
+        List<Order> orders = orderRepository.findAllWithMemberDelivery(lastOrderId, limit);
+        for (Order order : orders) {
+            for (OrderItem orderItem : order.getOrderItems()) {
+                orderItem.getItem().getName();
+            }
+        }
+        return orders;
+    }
+
+    /**
+     * 영속성 컨텍스트를 비운 뒤, DTO 변환처럼 member, delivery 에 접근했을 때 실행된 쿼리 수를 센다.
+     * 2차 캐시에 남아있는 엔티티가 있으면 쿼리 수가 달라지므로 2차 캐시도 비운다.
+     */
+    private long countQueries(Supplier<List<Order>> finder) {
+        em.flush();
+        em.clear();
+        em.getEntityManagerFactory().getCache().evictAll();
+        statistics.clear();
+
+        List<Order> orders = finder.get();
+        for (Order order : orders) {
+            order.getMember().getName();
+            order.getDelivery().getAddress();
+        }
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void clearContext() {
+        em.flush();
+        em.clear();
+        em.getEntityManagerFactory().getCache().evictAll();
+        statistics.clear();
+    }
+
+    private void createOrders(int count) {
+        for (int i = 0; i < count; i++, sequence++) {
+            Member member = new Member();
+            member.setName("member" + sequence);
+            member.setAddress(new Address("서울", String.valueOf(sequence), "1111"));
+            em.persist(member);
+
+            Book book1 = createBook("JPA BOOK" + sequence);
+            Book book2 = createBook("SPRING BOOK" + sequence);
+
+            Delivery delivery = new Delivery();
+            delivery.setAddress(member.getAddress());
+
+            Order order = Order.createOrder(member, delivery,
+                    OrderItem.createOrderItem(book1, 10000, 1),
+                    OrderItem.createOrderItem(book2, 20000, 2));
+            em.persist(order);
+        }
+    }
+
+    private Book createBook(String name) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(100);
+        em.persist(book);
+        return book;
+    }
+}
@@ -0,0 +1,132 @@
+package jpabook.jpashop.repository.query;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.monitor.QueryCount;
+import jpabook.jpashop.monitor.QueryCounter;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.service.dto.OrderDto;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 데이터는 InitDB 가 저장한 주문, 상품을 사용한다.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class FieldSetQueryRepositoryTest {
+
+    private static final Set<String> ORDER_ASSOCIATIONS = Set.of("member", "delivery");
+
+    @Autowired FieldSetQueryRepository fieldSetQueryRepository;
+    @Autowired OrderRepository orderRepository;
+    @Autowired ObjectMapper objectMapper;
+
+    @Test
+    @DisplayName("요청한 컬럼만 조인 없이 조회한다")
+    public void selectOnlyRequestedColumns() {
+        //When
+        QueryCount queryCount = QueryCounter.start("selectOnlyRequestedColumns");
+        FieldSetRows rows;
+        try {
+            rows = fieldSetQueryRepository.findFields(Order.class, "orderStatus", ORDER_ASSOCIATIONS, null, 20);
+        } finally {
+            QueryCounter.end(queryCount);
+        }
+
+        //Then
+        assertThat(rows.getFields()).containsExactly("id", "orderStatus");
+        assertThat(rows.getTuples()).isNotEmpty();
+        assertThat(queryCount.getShapeCounts()).hasSize(1);
+        String sql = queryCount.getShapeCounts().keySet().iterator().next().toLowerCase();
+        assertThat(sql).contains("order_status").doesNotContain("join", "order_date_time", "delivery_id");
+    }
+
+    @Test
+    @DisplayName("연관관계의 필드를 요청하면 그 연관관계만 조인해 조회한다")
+    public void joinRequestedAssociation() {
+        //Given
+        List<Order> orders = orderRepository.findAllWithMemberDelivery(null, 20);
+
+        //When
+        FieldSetRows rows = fieldSetQueryRepository.findFields(Order.class,
+                "member.name,delivery.address.city,member.id", ORDER_ASSOCIATIONS, null, 20);
+
+        //Then
+        assertThat(rows.getFields()).containsExactly("id", "member.name", "delivery.address.city", "member.id");
+        assertThat(rows.getTuples()).hasSameSizeAs(orders);
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            assertThat(rows.getTuples().get(i).toArray()).containsExactly(order.getId(), order.getMember().getName(),
+                    order.getDelivery().getAddress().getCity(), order.getMember().getId());
+        }
+    }
+
+    @Test
+    @DisplayName("아이디를 cursor 로 넘겨 다음 페이지를 조회한다")
+    public void keyset() {
+        //Given
+        FieldSetRows first = fieldSetQueryRepository.findFields(Item.class, "name", Set.of(), null, 1);
+        Long cursor = (Long) first.getTuples().get(0).get(0);
+
+        //When
+        FieldSetRows next = fieldSetQueryRepository.findFields(Item.class, "name", Set.of(), cursor, 1);
+
+        //Then
+        assertThat((Long) next.getTuples().get(0).get(0)).isGreaterThan(cursor);
+    }
+
+    @Test
+    @DisplayName("메타모델에 없는 필드, 컬렉션, 허용하지 않은 연관관계는 거부한다")
+    public void rejectUnsupportedFields() {
+        assertThatThrownBy(() -> fieldSetQueryRepository.findFields(Order.class, "password", ORDER_ASSOCIATIONS, null, 20))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> fieldSetQueryRepository.findFields(Order.class, "orderItems", ORDER_ASSOCIATIONS, null, 20))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> fieldSetQueryRepository.findFields(Order.class, "delivery.order.id", ORDER_ASSOCIATIONS, null, 20))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> fieldSetQueryRepository.findFields(Order.class, "member", ORDER_ASSOCIATIONS, null, 20))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> fieldSetQueryRepository.findFields(Order.class, "member.name", Set.of(), null, 20))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> fieldSetQueryRepository.findFields(Item.class, "author", Set.of(), null, 20))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Tuple 을 그대로 JSON 으로 쓰고, 전체 DTO 보다 응답이 작다")
+    public void serializeTuples() throws Exception {
+        //Given
+        List<OrderDto> fullDtos = orderRepository.findAllWithMemberDelivery(null, 20).stream()
+                .map(OrderDto::new)
+                .collect(Collectors.toList());
+        FieldSetRows rows = fieldSetQueryRepository.findFields(Order.class, "orderStatus", ORDER_ASSOCIATIONS, null, 20);
+
+        //When
+        byte[] sparse = objectMapper.writeValueAsBytes(rows);
+        byte[] full = objectMapper.writeValueAsBytes(fullDtos);
+
+        //Then
+        JsonNode json = objectMapper.readTree(sparse);
+        assertThat(json.isArray()).isTrue();
+        assertThat(json.get(0).has("id")).isTrue();
+        assertThat(json.get(0).has("orderStatus")).isTrue();
+        System.out.printf("full = %,d bytes, fields=orderStatus = %,d bytes%n", full.length, sparse.length);
+        assertThat(sparse.length).isLessThan(full.length);
+    }
+}
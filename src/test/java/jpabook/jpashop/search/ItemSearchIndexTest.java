@@ -0,0 +1,152 @@
+package jpabook.jpashop.search;
+
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ItemSearchIndexTest {
+
+    ItemSearchIndex index;
+
+    @Before
+    public void setUp() {
+        index = new ItemSearchIndex();
+        index.put(book(1L, "JPA 프로그래밍", 0L));
+        index.put(book(2L, "스프링 부트와 JPA 활용", 0L));
+        index.put(book(3L, "자바 ORM 표준 JPA 프로그래밍-2판", 0L));
+        Album album = new Album();
+        album.setId(4L);
+        album.setName("Spring Album");
+        album.setVersion(0L);
+        index.put(album);
+    }
+
+    @Test
+    @DisplayName("이름을 글자, 숫자 단위로 나누고 소문자로 바꾼다")
+    public void tokenize() {
+        assertThat(ItemSearchIndex.tokenize("자바 ORM 표준 JPA 프로그래밍-2판, jpa"))
+                .containsExactly("자바", "orm", "표준", "jpa", "프로그래밍", "2판");
+    }
+
+    @Test
+    @DisplayName("검색어의 모든 단어가 들어간 상품을 아이디 순서로 찾는다")
+    public void searchAllTerms() {
+        assertThat(itemIds(index.search("jpa", 10))).containsExactly(1L, 2L, 3L);
+        assertThat(itemIds(index.search("JPA 프로그래밍", 10))).containsExactly(1L, 3L);
+        assertThat(itemIds(index.search("jpa 프로그래밍", 1))).containsExactly(1L);
+        assertThat(index.search("jpa hibernate", 10)).isEmpty();
+        assertThat(index.search("spring", 10)).extracting(ItemSearchResult::getType).containsExactly("Album");
+    }
+
+    @Test
+    @DisplayName("이름이 바뀌면 이전 단어로는 찾을 수 없다")
+    public void rename() {
+        //When
+        index.put(book(1L, "하이버네이트 입문", 1L));
+
+        //Then
+        assertThat(itemIds(index.search("프로그래밍", 10))).containsExactly(3L);
+        assertThat(itemIds(index.search("하이버네이트", 10))).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("색인에 있는 것보다 낮은 버전은 무시한다")
+    public void ignoreOlderVersion() {
+        //Given
+        index.put(book(1L, "하이버네이트 입문", 2L));
+
+        //When
+        index.put(book(1L, "JPA 프로그래밍", 1L));
+
+        //Then
+        assertThat(index.search("프로그래밍", 10)).extracting(ItemSearchResult::getItemId).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("삭제한 상품은 찾을 수 없고, 상품이 없는 단어는 색인에서 지운다")
+    public void remove() {
+        //Given
+        int termCount = index.termCount();
+
+        //When
+        index.remove(4L);
+
+        //Then
+        assertThat(index.search("album", 10)).isEmpty();
+        assertThat(index.termCount()).isEqualTo(termCount - 2);
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("접두사로 시작하는 단어를 상품이 많은 순서로 제안한다")
+    public void autocomplete() {
+        //Given
+        index.put(book(5L, "프로그래머의 길", 0L));
+
+        //When, Then
+        assertThat(index.autocomplete("프로그", 10)).containsExactly("프로그래밍", "프로그래머의");
+        assertThat(index.autocomplete("스프링 부", 10)).containsExactly("부트와");
+        assertThat(index.autocomplete("없는", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("접두사로 시작하는 단어가 많아도 사전 순서와 관계없이 상품이 많은 단어를 제안한다")
+    public void autocompleteRanksAllTerms() {
+        //Given
+        for (long id = 100; id < 1300; id++) {
+            index.put(book(id, "prefix" + id, 0L));
+        }
+        for (long id = 2000; id < 2003; id++) {
+            index.put(book(id, "prefixzz", 0L));
+        }
+        index.put(book(3000L, "prefixyy", 0L));
+        index.put(book(3001L, "prefixyy", 0L));
+
+        //When, Then
+        // 미리 정렬해 둔 접두사
+        assertThat(index.autocomplete("p", 2)).containsExactly("prefixzz", "prefixyy");
+        assertThat(index.autocomplete("pre", 4)).containsExactly("prefixzz", "prefixyy", "prefix100", "prefix1000");
+        // 범위 조회
+        assertThat(index.autocomplete("prefix", 2)).containsExactly("prefixzz", "prefixyy");
+        assertThat(index.autocomplete("prefix", 4)).containsExactly("prefixzz", "prefixyy", "prefix100", "prefix1000");
+    }
+
+    @Test
+    @DisplayName("상품을 지우거나 이름을 바꾸면 자동완성 순위도 바뀐다")
+    public void autocompleteFollowsUpdates() {
+        //Given
+        index.put(book(10L, "kotlin", 0L));
+        index.put(book(11L, "kotlin", 0L));
+        index.put(book(12L, "kafka", 0L));
+        assertThat(index.autocomplete("k", 10)).containsExactly("kotlin", "kafka");
+
+        //When
+        index.remove(10L);
+        index.put(book(11L, "kafka", 1L));
+
+        //Then
+        assertThat(index.autocomplete("k", 10)).containsExactly("kafka");
+        assertThat(index.autocomplete("ko", 10)).isEmpty();
+    }
+
+    private Book book(Long id, String name, Long version) {
+        Book book = new Book();
+        book.setId(id);
+        book.setName(name);
+        book.setPrice(10000);
+        book.setVersion(version);
+        return book;
+    }
+
+    private List<Long> itemIds(List<ItemSearchResult> results) {
+        return results.stream().map(ItemSearchResult::getItemId).collect(Collectors.toList());
+    }
+}
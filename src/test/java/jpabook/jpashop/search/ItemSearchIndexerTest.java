@@ -0,0 +1,106 @@
+package jpabook.jpashop.search;
+
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.service.ItemService;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 색인은 커밋 후에 갱신되므로, 이 테스트는 @Transactional 없이 TransactionTemplate 으로 직접 커밋한다.
+ * 다른 테스트의 상품과 겹치지 않도록 매번 새로운 단어로 이름을 짓는다.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class ItemSearchIndexerTest {
+
+    @Autowired ItemSearchIndex itemSearchIndex;
+    @Autowired ItemService itemService;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Test
+    @DisplayName("저장한 상품은 커밋 후 검색된다")
+    public void indexOnInsert() {
+        //Given
+        String term = uniqueTerm();
+
+        //When
+        Long itemId = itemService.save(book(term + " 입문"));
+
+        //Then
+        assertThat(itemSearchIndex.search(term, 10)).extracting(ItemSearchResult::getItemId).containsExactly(itemId);
+    }
+
+    @Test
+    @DisplayName("이름을 바꾸면 커밋 후 새 이름으로만 검색된다")
+    public void reindexOnUpdate() {
+        //Given
+        String oldTerm = uniqueTerm();
+        String newTerm = uniqueTerm();
+        Long itemId = itemService.save(book(oldTerm));
+
+        //When
+        transactionTemplate.executeWithoutResult(status -> em.find(Item.class, itemId).setName(newTerm));
+
+        //Then
+        assertThat(itemSearchIndex.search(oldTerm, 10)).isEmpty();
+        assertThat(itemSearchIndex.search(newTerm, 10)).extracting(ItemSearchResult::getItemId).containsExactly(itemId);
+    }
+
+    @Test
+    @DisplayName("롤백된 저장은 색인에 반영되지 않는다")
+    public void rollbackIsNotIndexed() {
+        //Given
+        String term = uniqueTerm();
+
+        //When
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(book(term));
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        //Then
+        assertThat(itemSearchIndex.search(term, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("삭제한 상품은 커밋 후 검색되지 않는다")
+    public void removeOnDelete() {
+        //Given
+        String term = uniqueTerm();
+        Long itemId = itemService.save(book(term));
+
+        //When
+        transactionTemplate.executeWithoutResult(status -> em.remove(em.find(Item.class, itemId)));
+
+        //Then
+        assertThat(itemSearchIndex.search(term, 10)).isEmpty();
+    }
+
+    private String uniqueTerm() {
+        return "term" + UUID.randomUUID().toString().replace("-", "");
+    }
+
+    private Book book(String name) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(100);
+        return book;
+    }
+}
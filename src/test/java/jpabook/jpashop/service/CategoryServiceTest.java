@@ -0,0 +1,162 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.cache.CategoryTree;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Category;
+import jpabook.jpashop.domain.item.Item;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 트리 캐시는 커밋 후에 비워지므로, 이 테스트는 @Transactional 없이 TransactionTemplate 으로 직접 커밋한다.
+ * 커밋한 카테고리와 상품은 다른 테스트 클래스가 보지 않도록 테스트마다 지운다.
+ *
+ * root ─ a ─ a1 ─ a11
+ *      └ b
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class CategoryServiceTest {
+
+    @Autowired CategoryService categoryService;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    EntityManager em;
+
+    Long rootId;
+    Long aId;
+    Long a1Id;
+    Long a11Id;
+    Long bId;
+
+    Long a1ItemId;
+    Long a11ItemId;
+    Long sharedItemId; // a1, a11 에 함께 속한 상품
+    Long bItemId;
+
+    @Before
+    public void setUp() {
+        rootId = categoryService.create("root", null);
+        aId = categoryService.create("a", rootId);
+        a1Id = categoryService.create("a1", aId);
+        a11Id = categoryService.create("a11", a1Id);
+        bId = categoryService.create("b", rootId);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            a1ItemId = addItem("A1 BOOK", a1Id);
+            a11ItemId = addItem("A11 BOOK", a11Id);
+            sharedItemId = addItem("SHARED BOOK", a1Id, a11Id);
+            bItemId = addItem("B BOOK", bId);
+        });
+    }
+
+    /**
+     * 루트 아래 카테고리 전체(테스트에서 추가한 카테고리 포함)를 깊은 것부터 지운다.
+     * 카테고리를 지우면 연결 테이블(category_item) 행과 속한 상품도 함께 지워진다. (Category.items 의 cascade)
+     * 엔티티로 지우므로 커밋 후 이벤트로 트리 캐시와 검색 색인에서도 빠진다.
+     */
+    @After
+    public void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Category root = em.find(Category.class, rootId);
+            em.createQuery("select c from Category c" +
+                            " where c.id = :rootId or c.path like :descendantPattern" +
+                            " order by length(c.path) desc", Category.class)
+                    .setParameter("rootId", rootId)
+                    .setParameter("descendantPattern", root.getDescendantPath() + "%")
+                    .getResultList()
+                    .forEach(em::remove);
+        });
+    }
+
+    @Test
+    @DisplayName("하위 카테고리 전체의 상품을 중복 없이 쿼리 한번으로 조회한다")
+    public void findItemsInSubtree() {
+        //Given
+        categoryService.getTree();
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        //When
+        List<Long> itemIds = itemIds(categoryService.findItems(aId, 0, 100));
+
+        //Then
+        assertThat(itemIds).containsExactly(a1ItemId, a11ItemId, sharedItemId);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("카테고리 트리를 한번 만들면 다시 조회하지 않고, 카테고리가 추가되면 새로 만든다")
+    public void treeIsCachedUntilCategoryChanges() {
+        //Given
+        CategoryTree tree = categoryService.getTree();
+        assertThat(categoryService.getTree()).isSameAs(tree);
+        assertThat(tree.find(a11Id).getDepth()).isEqualTo(3);
+        assertThat(tree.find(rootId).getChildren()).extracting(CategoryTree.Node::getId).containsExactly(aId, bId);
+
+        //When
+        Long b1Id = categoryService.create("b1", bId);
+
+        //Then
+        CategoryTree refreshed = categoryService.getTree();
+        assertThat(refreshed).isNotSameAs(tree);
+        assertThat(refreshed.find(b1Id).getParentId()).isEqualTo(bId);
+    }
+
+    @Test
+    @DisplayName("카테고리를 옮기면 하위 카테고리도 함께 옮겨진다")
+    public void moveSubtree() {
+        //When
+        categoryService.move(a1Id, bId);
+
+        //Then
+        CategoryTree tree = categoryService.getTree();
+        assertThat(tree.find(a1Id).getParentId()).isEqualTo(bId);
+        assertThat(tree.find(a11Id).getDepth()).isEqualTo(3);
+        assertThat(itemIds(categoryService.findItems(aId, 0, 100))).isEmpty();
+        assertThat(itemIds(categoryService.findItems(bId, 0, 100)))
+                .containsExactly(a1ItemId, a11ItemId, sharedItemId, bItemId);
+        assertThat(itemIds(categoryService.findItems(a11Id, 0, 100))).containsExactly(a11ItemId, sharedItemId);
+    }
+
+    @Test
+    @DisplayName("하위 카테고리 밑으로는 옮길 수 없다")
+    public void moveIntoOwnSubtree() {
+        assertThatThrownBy(() -> categoryService.move(aId, a11Id))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Long addItem(String name, Long... categoryIds) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(100);
+        em.persist(book);
+        for (Long categoryId : categoryIds) {
+            em.find(Category.class, categoryId).addItem(book);
+        }
+        return book.getId();
+    }
+
+    private List<Long> itemIds(List<Item> items) {
+        return items.stream().map(Item::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,223 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.monitor.QueryCount;
+import jpabook.jpashop.monitor.QueryCounter;
+import jpabook.jpashop.service.dto.ItemUpdateCommand;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class ItemServiceTest {
+
+    @Autowired ItemService itemService;
+
+    @PersistenceContext
+    EntityManager em;
+
+    Long bookId;
+
+    @Before
+    public void setUp() {
+        Book book = new Book();
+        book.setName("JPA 프로그래밍");
+        book.setPrice(10000);
+        book.setStockQuantity(100);
+        book.setAuthor("김영한");
+        book.setIsbn("1234");
+        em.persist(book);
+        em.flush();
+        em.clear();
+        bookId = book.getId();
+    }
+
+    @Test
+    @DisplayName("요청에 담긴 필드만 바꾸고, update 에는 바뀐 컬럼만 들어간다")
+    public void updateOnlyChangedColumns() {
+        //Given
+        ItemUpdateCommand command = new ItemUpdateCommand();
+        command.setPrice(12000);
+
+        //When
+        List<String> updates = executedUpdates(() -> itemService.updateItem(bookId, command));
+
+        //Then
+        Book book = (Book) itemService.findById(bookId);
+        assertThat(book.getPrice()).isEqualTo(12000);
+        assertThat(book.getName()).isEqualTo("JPA 프로그래밍");
+        assertThat(book.getAuthor()).isEqualTo("김영한");
+
+        assertThat(updates).hasSize(1);
+        assertThat(updates.get(0)).contains("price").contains("version")
+                .doesNotContain("name").doesNotContain("author").doesNotContain("stock_quantity");
+    }
+
+    @Test
+    @DisplayName("바뀐 값이 없으면 update 하지 않는다")
+    public void noUpdateWhenNothingChanged() {
+        //Given
+        ItemUpdateCommand command = new ItemUpdateCommand();
+        command.setName("JPA 프로그래밍");
+
+        //When
+        List<String> updates = executedUpdates(() -> itemService.updateItem(bookId, command));
+
+        //Then
+        assertThat(updates).isEmpty();
+    }
+
+    @Test
+    @DisplayName("조회 후 다른 수정이 있었다면(버전이 다르면) 실패한다")
+    public void staleVersion() {
+        //Given
+        Long version = itemService.findById(bookId).getVersion();
+        ItemUpdateCommand command = new ItemUpdateCommand();
+        command.setVersion(version - 1);
+        command.setPrice(12000);
+
+        //When, Then
+        assertThatThrownBy(() -> itemService.updateItem(bookId, command))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+    }
+
+    @Test
+    @DisplayName("저장된 상품을 조회 시점의 버전과 함께 수정하면 같은 행을 수정하고 버전이 올라간다")
+    public void editExistingItem() {
+        //Given
+        Item loaded = itemService.findById(bookId);
+        Long version = loaded.getVersion();
+        long itemCount = countItems();
+        em.clear();
+
+        ItemUpdateCommand command = new ItemUpdateCommand();
+        command.setVersion(version);
+        command.setName("자바 ORM 표준 JPA 프로그래밍");
+
+        //When
+        itemService.updateItem(bookId, command);
+        em.flush();
+        em.clear();
+
+        //Then
+        Item edited = itemService.findById(bookId);
+        assertThat(edited.getName()).isEqualTo("자바 ORM 표준 JPA 프로그래밍");
+        assertThat(edited.getVersion()).isEqualTo(version + 1);
+        assertThat(countItems()).isEqualTo(itemCount);
+    }
+
+    @Test
+    @DisplayName("아이디가 있는 준영속 상품을 save 로 넘기면 새 상품으로 저장하지 않고 거부한다")
+    public void rejectSavingDetachedItem() {
+        //Given
+        // 수정 폼처럼 아이디만 채워 새로 만든 상품 (버전 없음)
+        Book detached = new Book();
+        detached.setId(bookId);
+        detached.setName("수정한 이름");
+        long itemCount = countItems();
+
+        //When, Then
+        assertThatThrownBy(() -> itemService.save(detached))
+                .isInstanceOf(IllegalArgumentException.class);
+        em.flush();
+        assertThat(countItems()).isEqualTo(itemCount);
+        assertThat(itemService.findById(bookId).getName()).isEqualTo("JPA 프로그래밍");
+    }
+
+    @Test
+    @DisplayName("가격 일괄 조정 후 영속성 컨텍스트가 비워져 바뀐 가격을 다시 읽는다")
+    public void adjustPricesClearsPersistenceContext() {
+        //Given
+        Item loaded = itemService.findById(bookId);
+
+        //When
+        int updated = itemService.adjustPrices(List.of(bookId), 10);
+
+        //Then
+        assertThat(updated).isEqualTo(1);
+        assertThat(em.contains(loaded)).isFalse();
+        Item reloaded = itemService.findById(bookId);
+        assertThat(reloaded).isNotSameAs(loaded);
+        assertThat(reloaded.getPrice()).isEqualTo(11000);
+        assertThat(reloaded.getVersion()).isEqualTo(loaded.getVersion() + 1);
+    }
+
+    @Test
+    @DisplayName("가격 일괄 조정은 int 범위를 넘는 중간 계산에도 정확하고, 원 단위 미만은 버린다")
+    public void adjustPricesWithoutOverflow() {
+        //Given
+        Long expensiveId = saveBook("비싼 책", 1_000_000_000);
+        Long cheapId = saveBook("싼 책", 999);
+
+        //When
+        itemService.adjustPrices(List.of(expensiveId), 100);
+        itemService.adjustPrices(List.of(cheapId), -10);
+
+        //Then
+        assertThat(itemService.findById(expensiveId).getPrice()).isEqualTo(2_000_000_000);
+        assertThat(itemService.findById(cheapId).getPrice()).isEqualTo(899);
+    }
+
+    @Test
+    @DisplayName("비율이 범위를 벗어나거나 조정한 가격이 최대 가격을 넘으면 가격을 바꾸지 않는다")
+    public void rejectOutOfRangePriceAdjustment() {
+        //Given
+        Long expensiveId = saveBook("비싼 책", 2_000_000_000);
+
+        //When, Then
+        assertThatThrownBy(() -> itemService.adjustPrices(List.of(bookId), -100))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> itemService.adjustPrices(List.of(bookId), ItemService.MAX_PRICE_INCREASE_PERCENT + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> itemService.adjustPrices(List.of(bookId, expensiveId), 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(itemService.findById(bookId).getPrice()).isEqualTo(10000);
+        assertThat(itemService.findById(expensiveId).getPrice()).isEqualTo(2_000_000_000);
+    }
+
+    private Long saveBook(String name, int price) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(1);
+        em.persist(book);
+        em.flush();
+        em.clear();
+        return book.getId();
+    }
+
+    private long countItems() {
+        return em.createQuery("select count(item) from Item item", Long.class).getSingleResult();
+    }
+
+    // 테스트 트랜잭션은 커밋되지 않으므로, 변경 감지 update 를 보려면 직접 flush 한다.
+    private List<String> executedUpdates(Runnable action) {
+        QueryCount queryCount = QueryCounter.start("ItemServiceTest");
+        try {
+            action.run();
+            em.flush();
+        } finally {
+            QueryCounter.end(queryCount);
+        }
+        return queryCount.getShapeCounts().keySet().stream()
+                .filter(shape -> shape.startsWith("update"))
+                .collect(Collectors.toList());
+    }
+}
@@ -1,5 +1,6 @@
 package jpabook.jpashop.service;
 
+import jpabook.jpashop.cache.MemberNameFilter;
 import jpabook.jpashop.domain.Member;
 import org.junit.Before;
 import org.junit.Test;
@@ -7,12 +8,24 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import org.springframework.test.context.junit4.SpringRunner;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 
 @RunWith(SpringRunner.class)
@@ -21,6 +34,10 @@ import static org.assertj.core.api.Assertions.assertThat;
 public class MemberServiceTest {
 
     @Autowired MemberService memberService;
+    @Autowired MemberNameFilter memberNameFilter;
+
+    @PersistenceContext
+    EntityManager em;
 
 
     Member member1;
@@ -116,4 +133,84 @@ public class MemberServiceTest {
         //Then
         assertThat(exist).isEqualTo(false);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("처음 보는 이름은 중복 확인 조회 없이 가입한다")
+    public void newNameSkipsSelect() {
+        //Given
+        long skipCount = memberNameFilter.getStats().getSkipCount();
+        Member member = new Member();
+        member.setName("newcomer-" + UUID.randomUUID());
+
+        //When
+        memberService.save(member);
+
+        //Then
+        assertThat(memberNameFilter.getStats().getSkipCount()).isEqualTo(skipCount + 1);
+        assertThat(memberNameFilter.mightContain(member.getName())).isTrue();
+    }
+
+    @Test
+    @DisplayName("필터에 없는 이름이 이미 저장되어 있어도 유니크 제약 위반을 IllegalStateException 으로 바꿔 막는다")
+    public void duplicateNameNotInFilter() {
+        //Given
+        // 서비스를 거치지 않고 저장해 필터에는 없는 이름
+        String name = "direct-" + UUID.randomUUID();
+        Member existing = new Member();
+        existing.setName(name);
+        em.persist(existing);
+        em.flush();
+
+        Member member = new Member();
+        member.setName(name);
+
+        //When, Then
+        assertThatThrownBy(() -> memberService.save(member))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("이미 존재하는 회원입니다.");
+    }
+
+    /**
+     * 각 스레드가 별도 트랜잭션으로 커밋해야 하므로 테스트 트랜잭션 없이 실행한다.
+     * 늦게 insert 한 쪽은 데이터베이스에 따라 제약 위반 또는 락 대기 실패로 끝날 수 있으므로 성공 수만 확인한다.
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("같은 이름으로 동시에 가입해도 한명만 저장된다")
+    public void concurrentSignupWithSameName() throws Exception {
+        //Given
+        String name = "race-" + UUID.randomUUID();
+        int threads = 8;
+        AtomicInteger saved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+
+        //When
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                Member member = new Member();
+                member.setName(name);
+                try {
+                    memberService.save(member);
+                    saved.incrementAndGet();
+                } catch (RuntimeException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        //Then
+        assertThat(saved.get()).isEqualTo(1);
+        assertThat(rejected.get()).isEqualTo(threads - 1);
+        assertThat(memberService.findByName(name)).hasSize(1);
+    }
+}
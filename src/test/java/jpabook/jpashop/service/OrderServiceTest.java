@@ -0,0 +1,192 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.monitor.QueryCount;
+import jpabook.jpashop.monitor.QueryCounter;
+import jpabook.jpashop.service.dto.BulkOrderResult;
+import jpabook.jpashop.service.dto.OrderCreateCommand;
+import jpabook.jpashop.service.dto.OrderDto;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 캐시 무효화는 커밋 이후에 일어나므로, 이 테스트는 @Transactional 없이 TransactionTemplate 으로 직접 커밋한다.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class OrderServiceTest {
+
+    @Autowired OrderService orderService;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    EntityManager em;
+
+    Long orderId;
+    Long memberId;
+    Long deliveryId;
+    Long itemId;
+
+    @Before
+    public void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Member member = new Member();
+            member.setName("cache-" + UUID.randomUUID());
+            member.setAddress(new Address("서울", "1", "1111"));
+            em.persist(member);
+
+            Book book = new Book();
+            book.setName("CACHE BOOK");
+            book.setPrice(10000);
+            book.setStockQuantity(100);
+            em.persist(book);
+
+            Delivery delivery = new Delivery();
+            delivery.setAddress(member.getAddress());
+
+            Order order = Order.createOrder(member, delivery,
+                    OrderItem.createOrderItem(book, 10000, 1),
+                    OrderItem.createOrderItem(book, 10000, 2));
+            em.persist(order);
+
+            orderId = order.getId();
+            memberId = member.getId();
+            deliveryId = delivery.getId();
+            itemId = book.getId();
+        });
+    }
+
+    @Test
+    @DisplayName("두번째 조회부터는 캐시에 담긴 DTO 를 반환한다")
+    public void findOrderDtoFromCache() {
+        //When
+        OrderDto first = orderService.findOrderDto(orderId);
+        OrderDto second = orderService.findOrderDto(orderId);
+
+        //Then
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    @DisplayName("회원 이름이 바뀌면 캐시가 무효화되어 바뀐 이름으로 조회된다")
+    public void evictWhenMemberUpdated() {
+        //Given
+        orderService.findOrderDto(orderId);
+
+        //When
+        String newName = "renamed-" + UUID.randomUUID();
+        transactionTemplate.executeWithoutResult(status -> em.find(Member.class, memberId).setName(newName));
+
+        //Then
+        assertThat(orderService.findOrderDto(orderId).getName()).isEqualTo(newName);
+    }
+
+    @Test
+    @DisplayName("배송 주소가 바뀌면 캐시가 무효화되어 바뀐 주소로 조회된다")
+    public void evictWhenDeliveryUpdated() {
+        //Given
+        orderService.findOrderDto(orderId);
+
+        //When
+        transactionTemplate.executeWithoutResult(status ->
+                em.find(Delivery.class, deliveryId).setAddress(new Address("부산", "2", "2222")));
+
+        //Then
+        assertThat(orderService.findOrderDto(orderId).getAddress().getCity()).isEqualTo("부산");
+    }
+
+    @Test
+    @DisplayName("롤백된 변경은 캐시를 무효화하지 않는다")
+    public void keepCacheWhenRolledBack() {
+        //Given
+        OrderDto cached = orderService.findOrderDto(orderId);
+
+        //When
+        transactionTemplate.executeWithoutResult(status -> {
+            em.find(Member.class, memberId).setName("rollback");
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        //Then
+        assertThat(orderService.findOrderDto(orderId)).isSameAs(cached);
+    }
+
+    @Test
+    @DisplayName("대량 주문 저장 시 insert 는 JDBC 배치로 묶여 행 수보다 훨씬 적게 실행된다")
+    public void createOrdersInBatch() {
+        //Given
+        int orderCount = OrderService.BULK_FLUSH_SIZE * 2 + 50;
+        List<OrderCreateCommand> commands = new ArrayList<>();
+        for (int i = 0; i < orderCount; i++) {
+            commands.add(new OrderCreateCommand(memberId, List.of(
+                    new OrderCreateCommand.OrderLine(itemId, 1),
+                    new OrderCreateCommand.OrderLine(itemId, 2),
+                    new OrderCreateCommand.OrderLine(itemId, 3))));
+        }
+
+        //When
+        QueryCount queryCount = QueryCounter.start("createOrdersInBatch");
+        BulkOrderResult result;
+        try {
+            result = orderService.createOrders(commands);
+        } finally {
+            QueryCounter.end(queryCount);
+        }
+
+        //Then
+        // 주문, 배송, 주문 상품 3개
+        assertThat(result.getOrderCount()).isEqualTo(orderCount);
+        assertThat(result.getInsertCount()).isEqualTo(orderCount * 5);
+        assertThat(countOrdersOfMember()).isEqualTo(orderCount + 1);
+        // 배치 없이 저장하면 행 수(1250)만큼 insert 가 준비된다.
+        assertThat(queryCount.getCount("insert")).isLessThan(result.getInsertCount() / 50);
+        System.out.println("bulk insert = " + result.getInsertsPerSecond() + " inserts/sec");
+    }
+
+    @Test
+    @DisplayName("대량 주문 중 하나라도 잘못된 주문이 있으면 전체를 저장하지 않는다")
+    public void createOrdersRollbackAll() {
+        //Given
+        List<OrderCreateCommand> commands = new ArrayList<>();
+        for (int i = 0; i < OrderService.BULK_FLUSH_SIZE + 1; i++) {
+            commands.add(new OrderCreateCommand(memberId, List.of(new OrderCreateCommand.OrderLine(itemId, 1))));
+        }
+        // 첫번째 묶음이 플러시된 뒤, 두번째 묶음에서 실패한다.
+        commands.add(new OrderCreateCommand(memberId, List.of(new OrderCreateCommand.OrderLine(-1L, 1))));
+
+        //When
+        assertThatThrownBy(() -> orderService.createOrders(commands))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        //Then
+        assertThat(countOrdersOfMember()).isEqualTo(1);
+    }
+
+    private long countOrdersOfMember() {
+        return transactionTemplate.execute(status ->
+                em.createQuery("select count(o) from Order o where o.member.id = :memberId", Long.class)
+                        .setParameter("memberId", memberId)
+                        .getSingleResult());
+    }
+}
@@ -0,0 +1,158 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 여러 스레드가 같은 상품의 재고를 동시에 차감해도 재고보다 많이 팔리지 않는지(oversell) 확인한다.
+ * 각 스레드가 별도 트랜잭션으로 커밋해야 하므로 @Transactional 없이 실행한다.
+ * 모드별 초당 처리 수를 함께 출력한다. (스레드 수, 데이터베이스에 따라 달라지므로 참고용)
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class StockServiceTest {
+
+    private static final int STOCK = 100;
+    private static final int THREADS = 8;
+    private static final int ATTEMPTS_PER_THREAD = 20; // 총 160번 시도, 재고보다 많다.
+
+    @Autowired StockService stockService;
+    @Autowired ItemService itemService;
+    @Autowired MemberService memberService;
+    @Autowired EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @DisplayName("조건부 update 모드 - 동시에 차감해도 재고만큼만 팔린다")
+    public void conditionalUpdateNoOversell() throws Exception {
+        //When
+        Result result = removeStockConcurrently(StockService.Mode.CONDITIONAL_UPDATE);
+
+        //Then
+        assertThat(result.sold).isEqualTo(STOCK);
+        assertThat(result.remainingStock).isZero();
+        assertThat(result.outOfStock).isEqualTo(THREADS * ATTEMPTS_PER_THREAD - STOCK);
+        assertThat(result.conflicted).isZero();
+    }
+
+    @Test
+    @DisplayName("낙관적 락 모드 - 동시에 차감해도 판매 수와 남은 재고의 합이 처음 재고와 같다")
+    public void optimisticNoOversell() throws Exception {
+        //When
+        Result result = removeStockConcurrently(StockService.Mode.OPTIMISTIC);
+
+        //Then
+        // 재시도 횟수를 넘겨 실패한 차감이 있을 수 있지만, 갱신 손실이나 초과 판매는 없어야 한다.
+        assertThat(result.remainingStock).isGreaterThanOrEqualTo(0);
+        assertThat(result.sold + result.remainingStock).isEqualTo(STOCK);
+    }
+
+    @Test
+    @DisplayName("조건부 update 는 차감한 상품만 2차 캐시에서 제거하고, 다른 상품과 다른 엔티티의 캐시는 그대로 둔다")
+    public void conditionalUpdateEvictsOnlyUpdatedItem() {
+        //Given
+        Member member = new Member();
+        member.setName("stock-cache-" + System.nanoTime());
+        memberService.save(member);
+        memberService.findById(member.getId());
+
+        Long itemId = saveBook("CACHED BOOK");
+        Long otherItemId = saveBook("OTHER CACHED BOOK");
+        itemService.findById(itemId);
+        itemService.findById(otherItemId);
+        Cache cache = entityManagerFactory.getCache();
+        assertThat(cache.contains(Member.class, member.getId())).isTrue();
+        assertThat(cache.contains(Item.class, itemId)).isTrue();
+        assertThat(cache.contains(Item.class, otherItemId)).isTrue();
+
+        //When
+        stockService.removeStock(itemId, 1, StockService.Mode.CONDITIONAL_UPDATE);
+
+        //Then
+        assertThat(cache.contains(Item.class, itemId)).isFalse();
+        assertThat(cache.contains(Item.class, otherItemId)).isTrue();
+        assertThat(cache.contains(Member.class, member.getId())).isTrue();
+        assertThat(itemService.findById(itemId).getStockQuantity()).isEqualTo(STOCK - 1);
+    }
+
+    private Long saveBook(String name) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(STOCK);
+        return itemService.save(book);
+    }
+
+    private Result removeStockConcurrently(StockService.Mode mode) throws Exception {
+        Long itemId = saveBook("HOT BOOK " + mode);
+
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger outOfStock = new AtomicInteger();
+        AtomicInteger conflicted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int attempt = 0; attempt < ATTEMPTS_PER_THREAD; attempt++) {
+                    try {
+                        stockService.removeStock(itemId, 1, mode);
+                        sold.incrementAndGet();
+                    } catch (IllegalStateException e) {
+                        if ("재고가 부족합니다.".equals(e.getMessage())) outOfStock.incrementAndGet();
+                        else conflicted.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        executor.shutdown();
+
+        int remainingStock = itemService.findById(itemId).getStockQuantity();
+        double perSecond = THREADS * ATTEMPTS_PER_THREAD * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        System.out.printf("%s: sold=%d, outOfStock=%d, conflicted=%d, remaining=%d, %.0f attempts/sec%n",
+                mode, sold.get(), outOfStock.get(), conflicted.get(), remainingStock, perSecond);
+        return new Result(sold.get(), outOfStock.get(), conflicted.get(), remainingStock);
+    }
+
+    static class Result {
+        final int sold;
+        final int outOfStock;
+        final int conflicted;
+        final int remainingStock;
+
+        Result(int sold, int outOfStock, int conflicted, int remainingStock) {
+            this.sold = sold;
+            this.outOfStock = outOfStock;
+            this.conflicted = conflicted;
+            this.remainingStock = remainingStock;
+        }
+    }
+}
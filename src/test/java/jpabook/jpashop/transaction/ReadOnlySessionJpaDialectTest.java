@@ -0,0 +1,172 @@
+package jpabook.jpashop.transaction;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.service.MemberService;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 읽기 전용 트랜잭션에서 조회한 엔티티는 스냅샷을 만들지 않는다.
+ *
+ * 트랜잭션마다 커밋해야 하므로 @Transactional 없이 TransactionTemplate 으로 직접 커밋하고, 저장한 회원은 테스트가 끝나면 지운다.
+ * 할당량은 실행 환경에 따라 달라지므로 출력 결과를 참고한다.
+ * (SQL, 바인딩 파라미터 로그가 측정값을 덮어버리지 않도록 이 테스트에서는 로그 레벨을 올린다.)
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "logging.level.org.hibernate.SQL=info",
+        "logging.level.org.hibernate.type=info",
+        "logging.level.p6spy=warn"
+})
+public class ReadOnlySessionJpaDialectTest {
+
+    private static final int MEMBER_COUNT = 10_000;
+    private static final int WARMUP = 5;
+    private static final int MEASURE = 10;
+
+    @Autowired MemberService memberService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired EntityManagerFactory entityManagerFactory;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    EntityManager em;
+
+    Long memberId;
+
+    @Before
+    public void setUp() {
+        memberId = transactionTemplate.execute(status -> {
+            for (int i = 0; i < MEMBER_COUNT; i++) {
+                Member member = new Member();
+                member.setName("readonly" + i);
+                member.setAddress(new Address("서울", String.valueOf(i), "1111"));
+                em.persist(member);
+            }
+            return memberRepository.findByName("readonly0").get(0).getId();
+        });
+    }
+
+    @After
+    public void tearDown() {
+        transactionTemplate.executeWithoutResult(status ->
+                em.createQuery("delete from Member m where m.name like 'readonly%'").executeUpdate());
+    }
+
+    @Test
+    @DisplayName("읽기 전용 트랜잭션에서 조회한 엔티티는 스냅샷이 없고, 쓰기 트랜잭션보다 적게 할당한다")
+    public void readOnlyTransactionKeepsNoSnapshot() {
+        //When
+        Measurement readWrite = measure(false);
+        Measurement readOnly = measure(true);
+
+        //Then
+        System.out.println("read-write = " + readWrite);
+        System.out.println("read-only  = " + readOnly);
+        System.out.printf("saved      = %,d bytes/op%n", readWrite.bytesPerOp - readOnly.bytesPerOp);
+        assertThat(readOnly.entityCount).isEqualTo(readWrite.entityCount).isGreaterThanOrEqualTo(MEMBER_COUNT);
+        assertThat(readWrite.snapshotCount).isEqualTo(readWrite.entityCount);
+        assertThat(readOnly.snapshotCount).isZero();
+    }
+
+    @Test
+    @DisplayName("트랜잭션 전에 열린 EntityManager(OSIV)에서도 읽기 전용으로 조회하고, 이어지는 쓰기 트랜잭션에서는 수정할 수 있다")
+    public void preBoundEntityManager() {
+        // OpenEntityManagerInViewInterceptor 처럼 요청 범위 EntityManager 를 미리 바인딩한다.
+        EntityManager requestEntityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(requestEntityManager));
+        try {
+            Session session = requestEntityManager.unwrap(Session.class);
+
+            //When
+            Member member = memberService.findById(memberId);
+
+            //Then
+            assertThat(session.isReadOnly(member)).isTrue();
+            assertThat(session.isDefaultReadOnly()).isFalse();
+
+            //When
+            transactionTemplate.executeWithoutResult(status ->
+                    memberService.findById(memberId).setAddress(new Address("부산", "1", "2222")));
+
+            //Then
+            assertThat(session.isReadOnly(member)).isFalse();
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            requestEntityManager.close();
+        }
+
+        Member saved = transactionTemplate.execute(status -> memberService.findById(memberId));
+        assertThat(saved.getAddress().getCity()).isEqualTo("부산");
+    }
+
+    private Measurement measure(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+
+        for (int i = 0; i < WARMUP; i++) {
+            template.execute(status -> memberRepository.findAll());
+        }
+
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        long allocated = 0;
+        Measurement last = null;
+        for (int i = 0; i < MEASURE; i++) {
+            long beforeBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+            last = template.execute(status -> {
+                List<Member> members = memberRepository.findAll();
+                EntityEntry[] entries = Arrays.stream(em.unwrap(SessionImplementor.class).getPersistenceContext().reentrantSafeEntityEntries())
+                        .map(entry -> entry.getValue())
+                        .toArray(EntityEntry[]::new);
+                long snapshotCount = Arrays.stream(entries).filter(entry -> entry.getLoadedState() != null).count();
+                return new Measurement(0, members.size(), snapshotCount);
+            });
+            allocated += threadMXBean.getThreadAllocatedBytes(threadId) - beforeBytes;
+        }
+        return new Measurement(allocated / MEASURE, last.entityCount, last.snapshotCount);
+    }
+
+    static class Measurement {
+        final long bytesPerOp;
+        final int entityCount;
+        final long snapshotCount;
+
+        Measurement(long bytesPerOp, int entityCount, long snapshotCount) {
+            this.bytesPerOp = bytesPerOp;
+            this.entityCount = entityCount;
+            this.snapshotCount = snapshotCount;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d bytes/op (entities=%d, snapshots=%d)", bytesPerOp, entityCount, snapshotCount);
+        }
+    }
+}